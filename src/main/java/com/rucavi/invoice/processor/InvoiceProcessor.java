@@ -1,11 +1,25 @@
 package com.rucavi.invoice.processor;
 
 import com.rucavi.invoice.processor.handlers.*;
+import com.rucavi.invoice.processor.pool.HandlerPool;
+import com.rucavi.invoice.processor.pool.SharedHandlerPool;
 
 import java.io.File;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * InvoiceProcessor is a generic class that processes invoices.
@@ -15,21 +29,32 @@ import java.util.Objects;
  * <p>
  * This class is designed to be flexible and can work with different types of
  * files and parsed invoice objects.
+ * <p>
+ * Optional behaviour is enabled through the {@code with*} methods, which must be
+ * called before the first input is processed. Processors owning pooled handlers or
+ * worker threads should be closed once they are no longer needed.
  *
  * @param <I> The type of the input for file retrieval.
  * @param <T> The type of the parsed invoice object.
  */
-public class InvoiceProcessor<I, T> {
+public class InvoiceProcessor<I, T> implements AutoCloseable {
     private final InputFilterStepHandler<I> inputFilterStepHandler;
     private final FileRetrievalStepHandler<I> fileRetrievalStepHandler;
-    private final InvoiceParserStepHandler<T> invoiceParserStepHandler;
-    private final ParseResultValidator<T>[] parseResultValidators;
+    private final HandlerPool<InvoiceParserStepHandler<T>> invoiceParserPool;
+    private final HandlerPool<ParseResultValidator<T>>[] parseResultValidatorPools;
     private final InvoiceLoadStepHandler<T> invoiceLoadStepHandler;
     private final ParseRectificationStepHandler<T> parseRectificationStepHandler;
     private final ParseSaveStepHandler<T> parseSaveStepHandler;
     private final DisposeStepHandler disposeStepHandler;
     private final FailedInvoiceBuilder<I, T> builder;
+    private final ConcurrentMap<Object, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
     private double validationThreshold = 1.0;
+    private volatile InputKeyExtractor<I> inputKeyExtractor;
+    private volatile ExecutorService workers;
+    private volatile int parallelism = 1;
+    private volatile Predicate<File> archiveFilter;
+    private volatile InvoiceKeyExtractor<T> invoiceKeyExtractor;
+    private volatile boolean started;
 
     /**
      * Constructor for InvoiceProcessor.
@@ -63,12 +88,12 @@ public class InvoiceProcessor<I, T> {
         Objects.requireNonNull(parseRectificationStepHandler, "ParseRectificationStepHandler must be provided");
         Objects.requireNonNull(parseSaveStepHandler, "ParseSaveStepHandler must be provided");
 
-        validateConstruction(parseResultValidators, validationThreshold);
+        validateConstruction(parseResultValidators.length, validationThreshold);
 
         this.inputFilterStepHandler = inputFilterStepHandler;
         this.fileRetrievalStepHandler = fileRetrievalStepHandler;
-        this.invoiceParserStepHandler = invoiceParserStepHandler;
-        this.parseResultValidators = parseResultValidators;
+        this.invoiceParserPool = new SharedHandlerPool<>(invoiceParserStepHandler);
+        this.parseResultValidatorPools = shared(parseResultValidators);
         this.invoiceLoadStepHandler = invoiceLoadStepHandler;
         this.parseRectificationStepHandler = parseRectificationStepHandler;
         this.parseSaveStepHandler = parseSaveStepHandler;
@@ -108,12 +133,12 @@ public class InvoiceProcessor<I, T> {
         Objects.requireNonNull(parseRectificationStepHandler, "ParseRectificationStepHandler must be provided");
         Objects.requireNonNull(parseSaveStepHandler, "ParseSaveStepHandler must be provided");
 
-        validateConstruction(parseResultValidators, validationThreshold);
+        validateConstruction(parseResultValidators.length, validationThreshold);
 
         this.inputFilterStepHandler = inputFilterStepHandler;
         this.fileRetrievalStepHandler = fileRetrievalStepHandler;
-        this.invoiceParserStepHandler = invoiceParserStepHandler;
-        this.parseResultValidators = parseResultValidators;
+        this.invoiceParserPool = new SharedHandlerPool<>(invoiceParserStepHandler);
+        this.parseResultValidatorPools = shared(parseResultValidators);
         this.invoiceLoadStepHandler = invoiceLoadStepHandler;
         this.parseRectificationStepHandler = parseRectificationStepHandler;
         this.parseSaveStepHandler = parseSaveStepHandler;
@@ -121,69 +146,580 @@ public class InvoiceProcessor<I, T> {
         this.builder = builder;
     }
 
+    /**
+     * Constructor for InvoiceProcessor with pooled parsers and validators.
+     * <p>
+     * Parsers and validators are acquired from their pools for every use, so handlers
+     * that are not thread-safe or are expensive to create can be safely shared across
+     * concurrent executions.
+     *
+     * @param inputFilterStepHandler        The handler for input filtering.
+     * @param fileRetrievalStepHandler      The handler for file retrieval.
+     * @param invoiceParserPool             The pool of handlers for invoice parsing.
+     * @param parseResultValidatorPools     The pools of validators for parsed results. Cannot be empty.
+     * @param validationThreshold           The threshold for validation. Must be between 0 and 1.
+     * @param invoiceLoadStepHandler        The handler for loading invoices.
+     * @param parseRectificationStepHandler The handler for rectifying parsed invoices.
+     * @param parseSaveStepHandler          The handler for saving parsed results.
+     * @param disposeStepHandler            The handler for disposing of files and resources.
+     */
+    public InvoiceProcessor(InputFilterStepHandler<I> inputFilterStepHandler,
+                            FileRetrievalStepHandler<I> fileRetrievalStepHandler,
+                            HandlerPool<InvoiceParserStepHandler<T>> invoiceParserPool,
+                            HandlerPool<ParseResultValidator<T>>[] parseResultValidatorPools,
+                            double validationThreshold,
+                            InvoiceLoadStepHandler<T> invoiceLoadStepHandler,
+                            ParseRectificationStepHandler<T> parseRectificationStepHandler,
+                            ParseSaveStepHandler<T> parseSaveStepHandler,
+                            DisposeStepHandler disposeStepHandler,
+                            FailedInvoiceBuilder<I, T> builder) {
+        Objects.requireNonNull(fileRetrievalStepHandler, "FileRetrievalStepHandler must be provided");
+        Objects.requireNonNull(invoiceParserPool, "InvoiceParserPool must be provided");
+        Objects.requireNonNull(parseResultValidatorPools, "ParseResultValidatorPools must be provided");
+        Objects.requireNonNull(invoiceLoadStepHandler, "InvoiceLoadStepHandler must be provided");
+        Objects.requireNonNull(parseRectificationStepHandler, "ParseRectificationStepHandler must be provided");
+        Objects.requireNonNull(parseSaveStepHandler, "ParseSaveStepHandler must be provided");
+
+        validateConstruction(parseResultValidatorPools.length, validationThreshold);
+
+        this.inputFilterStepHandler = inputFilterStepHandler;
+        this.fileRetrievalStepHandler = fileRetrievalStepHandler;
+        this.invoiceParserPool = invoiceParserPool;
+        this.parseResultValidatorPools = parseResultValidatorPools;
+        this.invoiceLoadStepHandler = invoiceLoadStepHandler;
+        this.parseRectificationStepHandler = parseRectificationStepHandler;
+        this.parseSaveStepHandler = parseSaveStepHandler;
+        this.validationThreshold = validationThreshold;
+        this.disposeStepHandler = disposeStepHandler;
+        this.builder = builder;
+    }
+
+    /**
+     * Enables single-flight processing of concurrent inputs sharing the same key.
+     * <p>
+     * While an input is being processed, any concurrent call with an input of the same key
+     * waits for the running execution and shares its outcome instead of retrieving and
+     * parsing the same files again. If the running execution fails, its exception is
+     * rethrown to every attached call.
+     *
+     * @param inputKeyExtractor The extractor of the coalescing key of each input.
+     * @return This processor.
+     * @throws IllegalStateException if processing has already started.
+     */
+    public synchronized InvoiceProcessor<I, T> withSingleFlight(InputKeyExtractor<I> inputKeyExtractor) {
+        checkNotStarted();
+        this.inputKeyExtractor = Objects.requireNonNull(inputKeyExtractor, "InputKeyExtractor must be provided");
+        return this;
+    }
+
+    /**
+     * Processes the files of every input on up to the given number of worker threads.
+     * <p>
+     * Parsers and validators that are not thread-safe must be supplied through pools
+     * when the parallelism is greater than 1. The rectification, load and save handlers,
+     * as well as the failed invoice builder, are shared by all the worker threads and are
+     * called concurrently, so they must be thread-safe. The worker threads are started once,
+     * so the parallelism can only be configured before processing and cannot be changed.
+     * Once configured, every file is processed on the worker threads, even for inputs
+     * with a single file, so per-thread pools never create handlers for the calling threads.
+     *
+     * @param parallelism The maximum number of files processed at the same time. Must be greater than 0.
+     * @return This processor.
+     * @throws IllegalStateException if the parallelism was already configured or processing has already started.
+     */
+    public synchronized InvoiceProcessor<I, T> withParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+
+        checkNotStarted();
+
+        if (workers != null) {
+            throw new IllegalStateException("Parallelism was already configured");
+        }
+        this.parallelism = parallelism;
+        workers = parallelism > 1 ? newWorkers(parallelism) : null;
+        return this;
+    }
+
+    /**
+     * Expands the retrieved ZIP archives, recognized by their {@code .zip} extension,
+     * and processes each of their entries as an invoice.
+     *
+     * @return This processor.
+     * @throws IllegalStateException if processing has already started.
+     * @see #withArchiveExpansion(Predicate)
+     */
+    public InvoiceProcessor<I, T> withArchiveExpansion() {
+        return withArchiveExpansion(file -> file.getName().toLowerCase(Locale.ROOT).endsWith(".zip"));
+    }
+
+    /**
+     * Expands the retrieved ZIP archives and processes each of their entries as an invoice.
+     * <p>
+     * Entries are read on demand through the central directory of the archive and streamed
+     * straight into {@link InvoiceParserStepHandler#parseInvoice(String, InputStream)}, so
+     * archives are never extracted by the processor. Entries are processed along with the
+     * rest of the retrieved files, within the configured parallelism, and their failures
+     * are notified per entry. Archives that cannot be opened are notified as failed files.
+     *
+     * @param archiveFilter The filter returning true for the retrieved files that are ZIP archives.
+     * @return This processor.
+     * @throws IllegalStateException if processing has already started.
+     */
+    public synchronized InvoiceProcessor<I, T> withArchiveExpansion(Predicate<File> archiveFilter) {
+        checkNotStarted();
+        this.archiveFilter = Objects.requireNonNull(archiveFilter, "Archive filter must be provided");
+        return this;
+    }
+
+    /**
+     * Partitions the valid invoices of every input by key before loading them.
+     * <p>
+     * Once every file of the input is parsed and validated, the invoices of each partition
+     * are loaded and saved in retrieval order on their own lane, while different partitions
+     * are loaded in parallel within the configured parallelism. This keeps the target system
+     * working on one company or supplier at a time on each lane. Failing to extract the key
+     * of an invoice is notified as a failure of that invoice.
+     * <p>
+     * Loading only starts once the whole input is parsed, so every parsed invoice of the
+     * input is kept in memory until then.
+     *
+     * @param invoiceKeyExtractor The extractor of the partition key of each parsed invoice.
+     * @return This processor.
+     * @throws IllegalStateException if processing has already started.
+     */
+    public synchronized InvoiceProcessor<I, T> withPartitioning(InvoiceKeyExtractor<T> invoiceKeyExtractor) {
+        checkNotStarted();
+        this.invoiceKeyExtractor = Objects.requireNonNull(invoiceKeyExtractor, "InvoiceKeyExtractor must be provided");
+        return this;
+    }
+
+    /**
+     * Creates the pooled handlers and starts the worker threads ahead of time,
+     * so the first executions do not pay for their initialization.
+     * <p>
+     * The pools are warmed up on the calling thread and on every worker thread,
+     * so per-thread pools create the handlers of every worker.
+     */
+    public synchronized void warmUp() {
+        warmUpPools();
+
+        ExecutorService executor = workers;
+        if (executor == null) {
+            return;
+        }
+
+        // The barrier holds every task until all of them run, so each one lands on a different worker.
+        // Warm-ups are synchronized, as concurrent ones could each hold part of the workers forever
+        CyclicBarrier allWorkers = new CyclicBarrier(parallelism);
+        List<Future<?>> tasks = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            tasks.add(executor.submit(() -> {
+                try {
+                    allWorkers.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while warming up workers", e);
+                } catch (BrokenBarrierException e) {
+                    throw new IllegalStateException("Failed to warm up workers", e);
+                }
+                warmUpPools();
+            }));
+        }
+        awaitAll(tasks);
+    }
+
+    /**
+     * Stops the worker threads, waiting for the files being processed to finish,
+     * and closes the handler pools.
+     */
+    @Override
+    public void close() {
+        ExecutorService executor = workers;
+        if (executor != null) {
+            executor.close();
+        }
+
+        invoiceParserPool.close();
+        for (HandlerPool<ParseResultValidator<T>> pool : parseResultValidatorPools) {
+            pool.close();
+        }
+    }
+
     /**
      * Processes the input to retrieve, parse, validate, rectify, load, and save the invoice.
      *
      * @param input The input for file retrieval.
      */
     public void process(I input) {
+        started = true;
+        Object key = inputKeyExtractor != null ? inputKeyExtractor.extractKey(input) : null;
+        if (key == null) {
+            doProcess(input);
+            return;
+        }
+
+        CompletableFuture<Void> execution = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            awaitRunning(running);
+            return;
+        }
+
+        try {
+            doProcess(input);
+        } catch (Throwable e) {
+            // Checked exceptions thrown sneakily by handlers must release the key as well
+            inFlight.remove(key, execution);
+            execution.completeExceptionally(e);
+            throw e;
+        }
+
+        // Calls arriving from now on must start a new execution, so release the key first
+        inFlight.remove(key, execution);
+        execution.complete(null);
+    }
+
+    private void awaitRunning(CompletableFuture<Void> running) {
+        try {
+            running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void doProcess(I input) {
         if (inputFilterStepHandler != null && !inputFilterStepHandler.filter(input)) {
             return;
         }
 
         List<File> files = fileRetrievalStepHandler.retrieveFile(input);
 
-        files.forEach(rawInvoice -> {
-            T parsedInvoice = null;
-            boolean isValid = false;
+        process(input, files);
+    }
 
-            try {
-                parsedInvoice = invoiceParserStepHandler.parseInvoice(rawInvoice);
-                isValid = isValidResult(parsedInvoice);
-                if (isValid) {
-                    invoiceLoadStepHandler.loadInvoice(parsedInvoice);
+    /**
+     * Processes files already retrieved for the input, skipping the input filtering and
+     * file retrieval steps. The files are then parsed, validated, rectified, loaded, saved
+     * and disposed of as in {@link #process(Object)}.
+     *
+     * @param input The input the files were retrieved for.
+     * @param files The retrieved files.
+     */
+    public void process(I input, List<File> files) {
+        started = true;
+        processFiles(input, files);
+
+        if (disposeStepHandler != null) {
+            disposeStepHandler.dispose(files);
+        }
+    }
+
+    private void processFiles(I input, List<File> files) {
+        List<ZipFile> archives = new ArrayList<>();
+        try {
+            List<Supplier<ValidInvoice<T>>> tasks = new ArrayList<>(files.size());
+            for (File rawInvoice : files) {
+                if (archiveFilter != null && archiveFilter.test(rawInvoice)) {
+                    addArchiveTasks(input, rawInvoice, archives, tasks);
                 } else {
-                    boolean rectified = parseRectificationStepHandler.rectifyParsedInvoice(parsedInvoice);
-                    if (rectified && isValidResult(parsedInvoice)) {
-                        invoiceLoadStepHandler.loadInvoice(parsedInvoice);
-                        isValid = true;
-                    }
+                    tasks.add(() -> parseFile(input, rawInvoice));
                 }
-            } catch (Exception e) {
-                if (parsedInvoice == null && builder != null) {
-                    parsedInvoice = builder.buildForError(input);
+            }
+
+            if (invoiceKeyExtractor == null) {
+                runAll(tasks.stream().<Runnable>map(task -> () -> loadAndSave(task.get())).toList());
+            } else {
+                // Every lane is loaded even if parsing some file threw, the first failure is rethrown afterwards
+                AtomicReference<RuntimeException> failure = new AtomicReference<>();
+                runAll(partition(parseAll(tasks, failure), failure));
+                if (failure.get() != null) {
+                    throw failure.get();
                 }
-                parseSaveStepHandler.saveAndNotifyFailure(rawInvoice, parsedInvoice);
-                return;
             }
+        } finally {
+            closeAll(archives);
+        }
+    }
+
+    private void addArchiveTasks(I input, File archive, List<ZipFile> archives, List<Supplier<ValidInvoice<T>>> tasks) {
+        ZipFile zip;
+        try {
+            zip = new ZipFile(archive);
+        } catch (IOException e) {
+            tasks.add(() -> {
+                parseSaveStepHandler.saveAndNotifyFailure(archive, builder != null ? builder.buildForError(input) : null);
+                return null;
+            });
+            return;
+        }
+
+        archives.add(zip);
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory()) {
+                tasks.add(() -> parseEntry(input, archive, zip, entry));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ValidInvoice<T>> parseAll(List<Supplier<ValidInvoice<T>>> tasks,
+                                           AtomicReference<RuntimeException> failure) {
+        ValidInvoice<T>[] results = new ValidInvoice[tasks.size()];
+        List<Runnable> parsing = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            int index = i;
+            parsing.add(recordingFailure(() -> results[index] = tasks.get(index).get(), failure));
+        }
+        runAll(parsing);
+
+        return Arrays.stream(results).filter(Objects::nonNull).toList();
+    }
+
+    private List<Runnable> partition(List<ValidInvoice<T>> validInvoices, AtomicReference<RuntimeException> failure) {
+        Map<Object, List<ValidInvoice<T>>> partitions = new LinkedHashMap<>();
+        for (ValidInvoice<T> validInvoice : validInvoices) {
+            partitions.computeIfAbsent(validInvoice.key(), key -> new ArrayList<>()).add(validInvoice);
+        }
+
+        return partitions.values().stream()
+                .map(lane -> recordingFailure(() -> loadAndSaveLane(lane), failure))
+                .toList();
+    }
 
+    private static Runnable recordingFailure(Runnable task, AtomicReference<RuntimeException> failure) {
+        return () -> {
             try {
-                if (isValid) {
-                    parseSaveStepHandler.saveAndNotifySuccess(parsedInvoice);
-                } else {
-                    parseSaveStepHandler.saveAndNotifyFailure(rawInvoice, parsedInvoice);
+                task.run();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        };
+    }
+
+    private void loadAndSaveLane(List<ValidInvoice<T>> lane) {
+        RuntimeException failure = null;
+        for (ValidInvoice<T> validInvoice : lane) {
+            try {
+                loadAndSave(validInvoice);
+            } catch (RuntimeException e) {
+                // Keep loading the rest of the lane, failures are rethrown once it is done
+                if (failure == null) {
+                    failure = e;
                 }
-            } catch (Exception e) {
-                // Avoid failing to process the next file
             }
-        });
+        }
 
-        if (disposeStepHandler != null) {
-            disposeStepHandler.dispose(files);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void runAll(List<Runnable> tasks) {
+        ExecutorService executor = workers;
+        if (executor == null) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        awaitAll(futures);
+    }
+
+    private ValidInvoice<T> parseFile(I input, File rawInvoice) {
+        return parseAndValidate(input,
+                parser -> parser.parseInvoice(rawInvoice),
+                parsedInvoice -> parseSaveStepHandler.saveAndNotifyFailure(rawInvoice, parsedInvoice));
+    }
+
+    private ValidInvoice<T> parseEntry(I input, File archive, ZipFile zip, ZipEntry entry) {
+        return parseAndValidate(input,
+                parser -> {
+                    try (InputStream content = zip.getInputStream(entry)) {
+                        return parser.parseInvoice(entry.getName(), content);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                parsedInvoice -> notifyEntryFailure(archive, zip, entry, parsedInvoice));
+    }
+
+    private void notifyEntryFailure(File archive, ZipFile zip, ZipEntry entry, T parsedInvoice) {
+        try {
+            Path directory = Files.createTempDirectory("invoice-entry-");
+            Path rawEntry = directory.resolve(entry.getName().substring(entry.getName().lastIndexOf('/') + 1));
+            try {
+                try (InputStream content = zip.getInputStream(entry)) {
+                    Files.copy(content, rawEntry);
+                }
+                parseSaveStepHandler.saveAndNotifyFailure(archive, entry.getName(), rawEntry.toFile(), parsedInvoice);
+            } finally {
+                Files.deleteIfExists(rawEntry);
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy failed entry " + entry.getName() + " of " + archive, e);
+        }
+    }
+
+    /**
+     * Parses, validates and rectifies an invoice, notifying its failure if it is not valid.
+     *
+     * @return The valid invoice, or null if its failure was already notified.
+     */
+    private ValidInvoice<T> parseAndValidate(I input, Function<InvoiceParserStepHandler<T>, T> parse, Consumer<T> notifyFailure) {
+        T parsedInvoice = null;
+
+        try {
+            parsedInvoice = parse(parse);
+            boolean isValid = isValidResult(parsedInvoice)
+                    || parseRectificationStepHandler.rectifyParsedInvoice(parsedInvoice) && isValidResult(parsedInvoice);
+            if (isValid) {
+                Object key = invoiceKeyExtractor != null ? invoiceKeyExtractor.extractKey(parsedInvoice) : null;
+                return new ValidInvoice<>(parsedInvoice, key, notifyFailure);
+            }
+        } catch (Exception e) {
+            if (parsedInvoice == null && builder != null) {
+                parsedInvoice = builder.buildForError(input);
+            }
+            notifyFailure.accept(parsedInvoice);
+            return null;
+        }
+
+        try {
+            notifyFailure.accept(parsedInvoice);
+        } catch (Exception e) {
+            // Avoid failing to process the next file
+        }
+        return null;
+    }
+
+    private void loadAndSave(ValidInvoice<T> validInvoice) {
+        if (validInvoice == null) {
+            return;
+        }
+
+        try {
+            invoiceLoadStepHandler.loadInvoice(validInvoice.parsedInvoice());
+        } catch (Exception e) {
+            validInvoice.notifyFailure().accept(validInvoice.parsedInvoice());
+            return;
+        }
+
+        try {
+            parseSaveStepHandler.saveAndNotifySuccess(validInvoice.parsedInvoice());
+        } catch (Exception e) {
+            // Avoid failing to process the next file
+        }
+    }
+
+    private void awaitAll(List<Future<?>> tasks) {
+        RuntimeException failure = null;
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing files", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                if (failure == null) {
+                    failure = (RuntimeException) e.getCause();
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkNotStarted() {
+        if (started) {
+            throw new IllegalStateException("Processor cannot be configured once processing has started");
+        }
+    }
+
+    private void warmUpPools() {
+        invoiceParserPool.warmUp();
+        for (HandlerPool<ParseResultValidator<T>> pool : parseResultValidatorPools) {
+            pool.warmUp();
+        }
+    }
+
+    private T parse(Function<InvoiceParserStepHandler<T>, T> parse) {
+        InvoiceParserStepHandler<T> parser = invoiceParserPool.acquire();
+        try {
+            return parse.apply(parser);
+        } finally {
+            invoiceParserPool.release(parser);
         }
     }
 
     private boolean isValidResult(T parsedInvoice) {
-        double validationResult = Arrays.stream(parseResultValidators)
-                .mapToDouble(validator -> validator.validate(parsedInvoice))
-                .average()
-                .orElse(0.0);
+        double validationResult = 0.0;
+        for (HandlerPool<ParseResultValidator<T>> pool : parseResultValidatorPools) {
+            ParseResultValidator<T> validator = pool.acquire();
+            try {
+                validationResult += validator.validate(parsedInvoice);
+            } finally {
+                pool.release(validator);
+            }
+        }
+
+        return validationResult / parseResultValidatorPools.length >= validationThreshold;
+    }
+
+    private record ValidInvoice<T>(T parsedInvoice, Object key, Consumer<T> notifyFailure) {
+    }
+
+    private static void closeAll(List<ZipFile> archives) {
+        for (ZipFile archive : archives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                // Nothing else to release, keep closing the rest
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> HandlerPool<ParseResultValidator<T>>[] shared(ParseResultValidator<T>[] parseResultValidators) {
+        HandlerPool<ParseResultValidator<T>>[] pools = new HandlerPool[parseResultValidators.length];
+        for (int i = 0; i < parseResultValidators.length; i++) {
+            pools[i] = new SharedHandlerPool<>(parseResultValidators[i]);
+        }
+        return pools;
+    }
+
+    private static ExecutorService newWorkers(int parallelism) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "invoice-processor-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
 
-        return validationResult >= validationThreshold;
+        return new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
     }
 
-    private void validateConstruction(ParseResultValidator<T>[] parseResultValidators, double validationThreshold) {
-        if (parseResultValidators.length == 0) {
+    private void validateConstruction(int parseResultValidatorCount, double validationThreshold) {
+        if (parseResultValidatorCount == 0) {
             throw new IllegalArgumentException("ParseResultValidators must be provided");
         }
 
@@ -0,0 +1,19 @@
+package com.rucavi.invoice.processor.handlers;
+
+/**
+ * Interface for extracting the coalescing key of an input in the invoice processing pipeline.
+ * <p>
+ * Concurrent executions whose inputs share the same key are coalesced into a single one,
+ * so keys must implement {@code equals} and {@code hashCode} consistently.
+ *
+ * @param <T> the type of the input the key is extracted from.
+ */
+public interface InputKeyExtractor<T> {
+    /**
+     * Extracts the key that identifies the given input, e.g. a mailbox or account id.
+     *
+     * @param input the input to extract the key from.
+     * @return the key of the input, or null if the input must not be coalesced.
+     */
+    Object extractKey(T input);
+}
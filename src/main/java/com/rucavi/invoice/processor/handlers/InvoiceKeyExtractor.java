@@ -0,0 +1,19 @@
+package com.rucavi.invoice.processor.handlers;
+
+/**
+ * Interface for extracting the partition key of a parsed invoice, such as its company or supplier.
+ * <p>
+ * Invoices sharing the same key are loaded in order on the same lane, so keys must
+ * implement {@code equals} and {@code hashCode} consistently.
+ *
+ * @param <T> The type of the parsed invoice.
+ */
+public interface InvoiceKeyExtractor<T> {
+    /**
+     * Extracts the partition key of the parsed invoice.
+     *
+     * @param parsedInvoice The parsed invoice to extract the key from.
+     * @return The partition key of the invoice. Invoices with a null key share the same lane.
+     */
+    Object extractKey(T parsedInvoice);
+}
@@ -1,6 +1,12 @@
 package com.rucavi.invoice.processor.handlers;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Interface for handling the file parsing step in the invoice processing pipeline.
@@ -15,4 +21,32 @@ public interface InvoiceParserStepHandler<T> {
      * @return The parsed invoice object.
      */
     T parseInvoice(File input);
+
+    /**
+     * Parses the invoice from the given content, such as an archive entry.
+     * <p>
+     * The default implementation copies the content to a temporary file, which is deleted
+     * once parsed. Parsers able to read from a stream should override it to avoid the copy.
+     *
+     * @param name    The name of the invoice, e.g. the path of the entry within its archive.
+     * @param content The content of the invoice to be parsed.
+     * @return The parsed invoice object.
+     */
+    default T parseInvoice(String name, InputStream content) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        int extension = fileName.lastIndexOf('.');
+        String suffix = extension >= 0 ? fileName.substring(extension) : null;
+
+        try {
+            Path spooled = Files.createTempFile("invoice-", suffix);
+            try {
+                Files.copy(content, spooled, StandardCopyOption.REPLACE_EXISTING);
+                return parseInvoice(spooled.toFile());
+            } finally {
+                Files.deleteIfExists(spooled);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spool invoice " + name, e);
+        }
+    }
 }
@@ -22,4 +22,18 @@ public interface ParseSaveStepHandler<T> {
      * @param parsedInvoice The parsed invoice data to save.
      */
     void saveAndNotifyFailure(File rawInvoice, T parsedInvoice);
+
+    /**
+     * Saves the raw and parsed invoice data of an archive entry and notifies failure.
+     * <p>
+     * The default implementation notifies the failure of the entry copy as a regular file.
+     *
+     * @param archive The archive containing the raw invoice.
+     * @param entryName The name of the archive entry containing the raw invoice.
+     * @param rawEntry A temporary copy of the entry, named after it and deleted once this method returns.
+     * @param parsedInvoice The parsed invoice data to save.
+     */
+    default void saveAndNotifyFailure(File archive, String entryName, File rawEntry, T parsedInvoice) {
+        saveAndNotifyFailure(rawEntry, parsedInvoice);
+    }
 }
@@ -0,0 +1,130 @@
+package com.rucavi.invoice.processor.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pool that creates up to a maximum number of handlers on demand and reuses them.
+ * <p>
+ * When every handler is in use, {@link #acquire()} blocks until one is released
+ * or the pool is closed. Closing the pool closes the idle handlers, while the ones
+ * in use are closed as they are released.
+ *
+ * @param <H> The type of the pooled handler.
+ */
+public class BoundedHandlerPool<H> implements HandlerPool<H> {
+    private static final long CLOSE_CHECK_INTERVAL_MILLIS = 50;
+
+    private final Supplier<? extends H> factory;
+    private final int maxSize;
+    private final BlockingQueue<H> idle = new LinkedBlockingQueue<>();
+    private int reserved;
+    private boolean closed;
+
+    /**
+     * Constructor for BoundedHandlerPool.
+     *
+     * @param factory The factory used to create new handlers.
+     * @param maxSize The maximum number of handlers to be created. Must be greater than 0.
+     */
+    public BoundedHandlerPool(Supplier<? extends H> factory, int maxSize) {
+        Objects.requireNonNull(factory, "Factory must be provided");
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be greater than 0");
+        }
+
+        this.factory = factory;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public H acquire() {
+        H handler = idle.poll();
+        if (handler != null) {
+            return handler;
+        }
+
+        if (reserve()) {
+            return create();
+        }
+
+        try {
+            while (true) {
+                handler = idle.poll(CLOSE_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (handler != null) {
+                    return handler;
+                }
+                checkNotClosed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a pooled handler", e);
+        }
+    }
+
+    @Override
+    public void release(H handler) {
+        synchronized (this) {
+            if (!closed) {
+                idle.offer(handler);
+                return;
+            }
+        }
+
+        PooledHandlers.closeAll(List.of(handler));
+    }
+
+    @Override
+    public void warmUp() {
+        while (reserve()) {
+            release(create());
+        }
+    }
+
+    @Override
+    public void close() {
+        List<H> handlers = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            idle.drainTo(handlers);
+        }
+
+        PooledHandlers.closeAll(handlers);
+    }
+
+    private synchronized void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Pool is closed");
+        }
+    }
+
+    private synchronized boolean reserve() {
+        checkNotClosed();
+
+        if (reserved >= maxSize) {
+            return false;
+        }
+
+        reserved++;
+        return true;
+    }
+
+    private H create() {
+        try {
+            return Objects.requireNonNull(factory.get(), "Factory must not return null");
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                reserved--;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.rucavi.invoice.processor.pool;
+
+/**
+ * Interface for supplying step handler instances to the invoice processing pipeline.
+ * <p>
+ * Every handler obtained through {@link #acquire()} is used by a single thread until it is
+ * handed back through {@link #release(Object)}, so handlers that are not thread-safe can
+ * be shared across concurrent executions through a pool.
+ *
+ * @param <H> The type of the pooled handler.
+ */
+public interface HandlerPool<H> extends AutoCloseable {
+    /**
+     * Acquires a handler for the exclusive use of the calling thread.
+     *
+     * @return The acquired handler.
+     * @throws IllegalStateException if the pool is closed.
+     */
+    H acquire();
+
+    /**
+     * Releases a handler previously obtained through {@link #acquire()}.
+     *
+     * @param handler The handler to be released.
+     */
+    void release(H handler);
+
+    /**
+     * Creates the handlers ahead of time, so the first executions do not pay
+     * for their initialization.
+     */
+    default void warmUp() {
+    }
+
+    /**
+     * Closes the pool and every handler it created that implements {@link AutoCloseable}.
+     * Must only be called once no handler is in use.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,37 @@
+package com.rucavi.invoice.processor.pool;
+
+import java.util.Collection;
+
+final class PooledHandlers {
+    private PooledHandlers() {
+    }
+
+    /**
+     * Closes every handler implementing {@link AutoCloseable}, even if some of them fail.
+     *
+     * @param handlers The handlers to be closed.
+     * @throws IllegalStateException if any handler fails to close.
+     */
+    static void closeAll(Collection<?> handlers) {
+        IllegalStateException failure = null;
+        for (Object handler : handlers) {
+            if (!(handler instanceof AutoCloseable closeable)) {
+                continue;
+            }
+
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new IllegalStateException("Failed to close pooled handler", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.rucavi.invoice.processor.pool;
+
+import java.util.Objects;
+
+/**
+ * Pool that hands out the same thread-safe handler instance to every caller.
+ * <p>
+ * The handler is owned by the caller, so it is not closed along with the pool.
+ *
+ * @param <H> The type of the pooled handler.
+ */
+public class SharedHandlerPool<H> implements HandlerPool<H> {
+    private final H handler;
+
+    /**
+     * Constructor for SharedHandlerPool.
+     *
+     * @param handler The thread-safe handler to be shared.
+     */
+    public SharedHandlerPool(H handler) {
+        this.handler = Objects.requireNonNull(handler, "Handler must be provided");
+    }
+
+    @Override
+    public H acquire() {
+        return handler;
+    }
+
+    @Override
+    public void release(H handler) {
+        // Nothing to do, the handler is shared
+    }
+
+    @Override
+    public void close() {
+        // Nothing to do, the handler is owned by the caller
+    }
+}
@@ -0,0 +1,68 @@
+package com.rucavi.invoice.processor.pool;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Pool that creates one handler per thread and keeps it for the lifetime of the thread.
+ * <p>
+ * Best suited for long-lived threads, such as the workers of the processor. Warming up
+ * only creates the handler of the calling thread, the rest are created on first use.
+ *
+ * @param <H> The type of the pooled handler.
+ */
+public class ThreadLocalHandlerPool<H> implements HandlerPool<H> {
+    private final Supplier<? extends H> factory;
+    private final Queue<H> created = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<H> handlers = ThreadLocal.withInitial(this::create);
+    private volatile boolean closed;
+
+    /**
+     * Constructor for ThreadLocalHandlerPool.
+     *
+     * @param factory The factory used to create the handler of each thread.
+     */
+    public ThreadLocalHandlerPool(Supplier<? extends H> factory) {
+        this.factory = Objects.requireNonNull(factory, "Factory must be provided");
+    }
+
+    @Override
+    public H acquire() {
+        if (closed) {
+            throw new IllegalStateException("Pool is closed");
+        }
+
+        return handlers.get();
+    }
+
+    @Override
+    public void release(H handler) {
+        // Nothing to do, the handler stays bound to its thread
+    }
+
+    @Override
+    public void warmUp() {
+        acquire();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        handlers.remove();
+        PooledHandlers.closeAll(new ArrayList<>(created));
+        created.clear();
+    }
+
+    private H create() {
+        H handler = Objects.requireNonNull(factory.get(), "Factory must not return null");
+        created.add(handler);
+        return handler;
+    }
+}
@@ -0,0 +1,296 @@
+package com.rucavi.invoice.processor.watch;
+
+import com.rucavi.invoice.processor.InvoiceProcessor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * DirectoryWatchIngestor continuously feeds the files landing in a directory
+ * to an {@link InvoiceProcessor} as soon as they are completely written.
+ * <p>
+ * New files are detected through a {@link WatchService}. A file is considered complete
+ * once its size and modification time stay unchanged for the stability window, so files
+ * still being written are never processed. Writers that create files under a temporary
+ * name and rename them into place can exclude those names through the file filter, and
+ * use a zero stability window to have files processed as soon as they are renamed.
+ * The directory is also rescanned periodically to pick up any file whose events were missed.
+ * <p>
+ * Files are processed without going through the input filtering and file retrieval steps,
+ * and are not processed again unless their size or modification time changes. If processing
+ * a batch of files throws, the batch is retried on the next rescan.
+ * <p>
+ * An unexpected failure stops the watching thread. It can be detected through
+ * {@link #isRunning()} and is rethrown when the ingestor is closed.
+ *
+ * @param <I> The type of the input the files are processed for.
+ * @param <T> The type of the parsed invoice object.
+ */
+public class DirectoryWatchIngestor<I, T> implements AutoCloseable {
+    private static final Duration MAX_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final InvoiceProcessor<I, T> processor;
+    private final I input;
+    private final Path directory;
+    private final Map<Path, FileState> pending = new LinkedHashMap<>();
+    private final Map<Path, FileState> processed = new HashMap<>();
+    private Duration stabilityWindow = Duration.ofMillis(250);
+    private Duration rescanInterval = Duration.ofMinutes(1);
+    private Predicate<Path> fileFilter = path -> !path.getFileName().toString().startsWith(".");
+    private volatile boolean running;
+    private volatile Thread thread;
+    private volatile Throwable failure;
+
+    /**
+     * Constructor for DirectoryWatchIngestor.
+     *
+     * @param processor The processor the files are fed to.
+     * @param input     The input the files are processed for.
+     * @param directory The directory to be watched.
+     */
+    public DirectoryWatchIngestor(InvoiceProcessor<I, T> processor, I input, Path directory) {
+        Objects.requireNonNull(processor, "InvoiceProcessor must be provided");
+        Objects.requireNonNull(directory, "Directory must be provided");
+
+        this.processor = processor;
+        this.input = input;
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the time a file must remain unchanged to be considered completely written.
+     *
+     * @param stabilityWindow The stability window. Cannot be negative.
+     * @return This ingestor.
+     */
+    public DirectoryWatchIngestor<I, T> withStabilityWindow(Duration stabilityWindow) {
+        Objects.requireNonNull(stabilityWindow, "Stability window must be provided");
+        if (stabilityWindow.isNegative()) {
+            throw new IllegalArgumentException("Stability window cannot be negative");
+        }
+
+        this.stabilityWindow = stabilityWindow;
+        return this;
+    }
+
+    /**
+     * Sets the interval between full rescans of the directory.
+     *
+     * @param rescanInterval The rescan interval. Must be positive.
+     * @return This ingestor.
+     */
+    public DirectoryWatchIngestor<I, T> withRescanInterval(Duration rescanInterval) {
+        Objects.requireNonNull(rescanInterval, "Rescan interval must be provided");
+        if (rescanInterval.isNegative() || rescanInterval.isZero()) {
+            throw new IllegalArgumentException("Rescan interval must be positive");
+        }
+
+        this.rescanInterval = rescanInterval;
+        return this;
+    }
+
+    /**
+     * Sets the filter of the files to be processed. By default, hidden files are skipped.
+     *
+     * @param fileFilter The filter returning true for the files to be processed.
+     * @return This ingestor.
+     */
+    public DirectoryWatchIngestor<I, T> withFileFilter(Predicate<Path> fileFilter) {
+        this.fileFilter = Objects.requireNonNull(fileFilter, "File filter must be provided");
+        return this;
+    }
+
+    /**
+     * Starts watching the directory on a background thread.
+     *
+     * @throws IllegalStateException if the ingestor was already started.
+     * @throws UncheckedIOException  if the directory cannot be watched.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Ingestor was already started");
+        }
+
+        WatchService watchService;
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch directory " + directory, e);
+        }
+
+        running = true;
+        thread = new Thread(() -> watch(watchService), "invoice-directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Checks whether the directory is being watched.
+     *
+     * @return true if the ingestor was started, is not closed and has not stopped because of a failure.
+     */
+    public boolean isRunning() {
+        Thread watcher = thread;
+        return running && watcher != null && watcher.isAlive();
+    }
+
+    /**
+     * Stops watching the directory, waiting for the files being processed to finish.
+     *
+     * @throws IllegalStateException if the watching thread had stopped because of an unexpected failure.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (thread == null) {
+            return;
+        }
+
+        // The watching thread is not interrupted, so the files being processed are loaded and disposed of
+        // before it notices it must stop, within the poll interval
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Watching directory " + directory + " failed", failure);
+        }
+    }
+
+    private void watch(WatchService watchService) {
+        try (watchService) {
+            long nextRescan = System.nanoTime();
+            while (running) {
+                long now = System.nanoTime();
+                if (now - nextRescan >= 0) {
+                    rescan();
+                    nextRescan = now + rescanInterval.toNanos();
+                }
+
+                ingestCompletedFiles();
+
+                WatchKey key = watchService.poll(pollInterval(), TimeUnit.NANOSECONDS);
+                if (key != null && !handleEvents(key)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // The ingestor never interrupts its thread, so treat it as a request to stop
+            running = false;
+        } catch (Throwable e) {
+            failure = e;
+            running = false;
+        }
+    }
+
+    private boolean handleEvents(WatchKey key) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                track(directory.resolve((Path) event.context()));
+            }
+        }
+
+        if (overflow) {
+            rescan();
+        }
+        return key.reset();
+    }
+
+    private void rescan() {
+        processed.keySet().removeIf(path -> !Files.exists(path));
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(this::track);
+        } catch (IOException e) {
+            // Keep watching, the next rescan will try again
+        }
+    }
+
+    private void track(Path path) {
+        if (pending.containsKey(path) || !fileFilter.test(path)) {
+            return;
+        }
+
+        FileState state = FileState.of(path);
+        FileState done = processed.get(path);
+        if (state != null && (done == null || !state.sameContentAs(done))) {
+            pending.put(path, state);
+        }
+    }
+
+    private void ingestCompletedFiles() {
+        long now = System.nanoTime();
+        Map<Path, FileState> completed = new LinkedHashMap<>();
+
+        Iterator<Map.Entry<Path, FileState>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, FileState> entry = iterator.next();
+            FileState current = FileState.of(entry.getKey());
+            if (current == null) {
+                iterator.remove();
+            } else if (!current.sameContentAs(entry.getValue())) {
+                entry.setValue(current);
+            } else if (now - entry.getValue().observedAt() >= stabilityWindow.toNanos()) {
+                completed.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        if (completed.isEmpty()) {
+            return;
+        }
+
+        try {
+            processor.process(input, completed.keySet().stream().map(Path::toFile).toList());
+        } catch (RuntimeException e) {
+            // Leave the files unprocessed, so the next rescan retries them
+            return;
+        }
+        processed.putAll(completed);
+    }
+
+    private long pollInterval() {
+        if (pending.isEmpty()) {
+            return MAX_POLL_INTERVAL.toNanos();
+        }
+
+        return Math.max(1, Math.min(MAX_POLL_INTERVAL.toNanos(), stabilityWindow.toNanos()));
+    }
+
+    private record FileState(long size, long lastModified, long observedAt) {
+        static FileState of(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    return null;
+                }
+                return new FileState(attributes.size(), attributes.lastModifiedTime().toMillis(), System.nanoTime());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        boolean sameContentAs(FileState other) {
+            return size == other.size && lastModified == other.lastModified;
+        }
+    }
+}
@@ -1,18 +1,40 @@
 package com.rucavi.invoice.processor;
 
 import com.rucavi.invoice.processor.handlers.*;
+import com.rucavi.invoice.processor.pool.BoundedHandlerPool;
+import com.rucavi.invoice.processor.pool.HandlerPool;
+import com.rucavi.invoice.processor.pool.SharedHandlerPool;
+import com.rucavi.invoice.processor.pool.ThreadLocalHandlerPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -405,6 +427,744 @@ public class InvoiceProcessorTests {
         assertThrows(RuntimeException.class, () -> invoiceProcessor.process("input"));
     }
 
+    @Test
+    void whenSameKeyIsProcessedConcurrently_RetrieveAndParseOnlyOnce() throws Exception {
+        // Arrange
+        processor.withSingleFlight(input -> input);
+        var retrieving = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var file = mock(File.class);
+        var parsed = new StringWrapper("parsed");
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenAnswer(inv -> {
+            retrieving.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(file);
+        });
+        when(parser.parseInvoice(file)).thenReturn(parsed);
+        when(validator.validate(parsed)).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        var leader = CompletableFuture.runAsync(() -> processor.process("input"));
+        assertTrue(retrieving.await(5, TimeUnit.SECONDS));
+        var follower = new FutureTask<Void>(() -> processor.process("input"), null);
+        var followerThread = new Thread(follower);
+        followerThread.start();
+        awaitWaiting(followerThread);
+        release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        follower.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        verify(retriever, times(1)).retrieveFile("input");
+        verify(parser, times(1)).parseInvoice(file);
+        verify(saver, times(1)).saveAndNotifySuccess(parsed);
+        verify(disposer, times(1)).dispose(List.of(file));
+    }
+
+    @Test
+    void whenCoalescedExecutionFails_ShareExceptionWithAttachedCalls() throws Exception {
+        // Arrange
+        processor.withSingleFlight(input -> input);
+        var retrieving = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenAnswer(inv -> {
+            retrieving.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            throw new IllegalStateException("boom");
+        });
+
+        // Act
+        var leader = CompletableFuture.runAsync(() -> processor.process("input"));
+        assertTrue(retrieving.await(5, TimeUnit.SECONDS));
+        var follower = new FutureTask<Void>(() -> processor.process("input"), null);
+        var followerThread = new Thread(follower);
+        followerThread.start();
+        awaitWaiting(followerThread);
+        release.countDown();
+
+        // Assert
+        var leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        var followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+        assertSame(leaderError.getCause(), followerError.getCause());
+        verify(retriever, times(1)).retrieveFile("input");
+        verifyNoInteractions(parser, saver, disposer);
+    }
+
+    @Test
+    void whenKeyIsNoLongerInFlight_ProcessAgain() {
+        // Arrange
+        processor.withSingleFlight(input -> input);
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of());
+
+        // Act
+        processor.process("input");
+        processor.process("input");
+
+        // Assert
+        verify(retriever, times(2)).retrieveFile("input");
+    }
+
+    @Test
+    void whenCheckedExceptionIsThrownSneakily_ReleaseKey() {
+        // Arrange
+        processor.withSingleFlight(input -> input);
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input"))
+                .thenAnswer(inv -> {
+                    throw new IOException("boom");
+                })
+                .thenReturn(List.of());
+
+        // Act
+        assertThrows(IOException.class, () -> processor.process("input"));
+
+        // Assert
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> processor.process("input"));
+        verify(retriever, times(2)).retrieveFile("input");
+    }
+
+    @Test
+    void whenProcessingHasStarted_IllegalStateExceptionIsThrownOnConfiguration() {
+        // Arrange
+        when(filter.filter("input")).thenReturn(false);
+        processor.process("input");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> processor.withSingleFlight(input -> input));
+        assertThrows(IllegalStateException.class, () -> processor.withParallelism(2));
+        assertThrows(IllegalStateException.class, () -> processor.withArchiveExpansion());
+        assertThrows(IllegalStateException.class, () -> processor.withPartitioning(invoice -> invoice));
+    }
+
+    @Test
+    void whenKeyIsNull_DoNotCoalesce() {
+        // Arrange
+        processor.withSingleFlight(input -> null);
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of());
+
+        // Act
+        processor.process("input");
+
+        // Assert
+        verify(retriever).retrieveFile("input");
+        verify(disposer).dispose(List.of());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenNoValidatorPoolsAreProvided_IllegalArgumentExceptionIsThrown() {
+        Executable fail = () -> new InvoiceProcessor<String, StringWrapper>(
+                filter,
+                retriever,
+                new SharedHandlerPool<>(parser),
+                new HandlerPool[]{}, 1.0,
+                loader,
+                rectifier,
+                saver,
+                disposer,
+                null);
+
+        assertThrows(IllegalArgumentException.class, fail);
+    }
+
+    @Test
+    void whenParallelismIsInvalid_IllegalArgumentExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> processor.withParallelism(0));
+    }
+
+    @Test
+    void whenParallelismIsConfiguredTwice_IllegalStateExceptionIsThrown() {
+        processor.withParallelism(2);
+
+        assertThrows(IllegalStateException.class, () -> processor.withParallelism(4));
+        processor.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenPerThreadPoolIsWarmedUp_CreateHandlerOnEveryWorker() {
+        // Arrange
+        var created = new AtomicInteger();
+        var parserPool = new ThreadLocalHandlerPool<InvoiceParserStepHandler<StringWrapper>>(() -> {
+            created.incrementAndGet();
+            return parser;
+        });
+        var invoiceProcessor = new InvoiceProcessor<String, StringWrapper>(
+                filter,
+                retriever,
+                parserPool,
+                new HandlerPool[]{new SharedHandlerPool<>(validator)}, validationThreshold,
+                loader,
+                rectifier,
+                saver,
+                disposer,
+                null).withParallelism(3);
+        var files = List.of(new File("a"), new File("b"), new File("c"), new File("d"), new File("e"), new File("f"));
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(files);
+        when(parser.parseInvoice(any(File.class))).thenAnswer(inv -> new StringWrapper(inv.getArgument(0, File.class).getName()));
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        try (invoiceProcessor) {
+            invoiceProcessor.warmUp();
+            assertEquals(4, created.get());
+            invoiceProcessor.process("input");
+        }
+
+        // Assert
+        assertEquals(4, created.get());
+        verify(saver, times(6)).saveAndNotifySuccess(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSingleFileInputsComeFromManyThreads_ParseThemOnWarmedUpWorkers() throws Exception {
+        // Arrange
+        var created = new AtomicInteger();
+        var parserPool = new ThreadLocalHandlerPool<InvoiceParserStepHandler<StringWrapper>>(() -> {
+            created.incrementAndGet();
+            return parser;
+        });
+        var invoiceProcessor = new InvoiceProcessor<String, StringWrapper>(
+                filter,
+                retriever,
+                parserPool,
+                new HandlerPool[]{new SharedHandlerPool<>(validator)}, validationThreshold,
+                loader,
+                rectifier,
+                saver,
+                disposer,
+                null).withParallelism(2);
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenAnswer(inv -> List.of(new File("a")));
+        when(parser.parseInvoice(any(File.class))).thenReturn(new StringWrapper("a"));
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+        invoiceProcessor.warmUp();
+        int warmedUp = created.get();
+
+        // Act
+        try (invoiceProcessor) {
+            for (int i = 0; i < 4; i++) {
+                var caller = new Thread(() -> invoiceProcessor.process("input"));
+                caller.start();
+                caller.join(5000);
+            }
+        }
+
+        // Assert
+        assertEquals(3, warmedUp);
+        assertEquals(warmedUp, created.get());
+        verify(saver, times(4)).saveAndNotifySuccess(new StringWrapper("a"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenClosedWhileProcessing_WaitForRunningFilesBeforeClosingPools() throws Exception {
+        // Arrange
+        var parsing = new CountDownLatch(2);
+        var release = new CountDownLatch(1);
+        var closedWhileInUse = new AtomicInteger();
+        var parserPool = new BoundedHandlerPool<InvoiceParserStepHandler<StringWrapper>>(() -> new ClosingParser() {
+            @Override
+            public StringWrapper parseInvoice(File input) {
+                parsing.countDown();
+                try {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (closed) {
+                    closedWhileInUse.incrementAndGet();
+                }
+                return new StringWrapper(input.getName());
+            }
+        }, 2);
+        var invoiceProcessor = new InvoiceProcessor<String, StringWrapper>(
+                filter,
+                retriever,
+                parserPool,
+                new HandlerPool[]{new SharedHandlerPool<>(validator)}, validationThreshold,
+                loader,
+                rectifier,
+                saver,
+                disposer,
+                null).withParallelism(2);
+        var files = List.of(new File("a"), new File("b"));
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(files);
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        var processing = CompletableFuture.runAsync(() -> invoiceProcessor.process("input"));
+        assertTrue(parsing.await(5, TimeUnit.SECONDS));
+        var closing = CompletableFuture.runAsync(invoiceProcessor::close);
+        Thread.sleep(100);
+        assertFalse(closing.isDone());
+        release.countDown();
+        processing.get(5, TimeUnit.SECONDS);
+        closing.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(0, closedWhileInUse.get());
+        verify(saver, times(2)).saveAndNotifySuccess(any());
+        verify(disposer).dispose(files);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenHandlersArePooled_AcquireAndReleaseForEveryUse() {
+        // Arrange
+        HandlerPool<InvoiceParserStepHandler<StringWrapper>> parserPool = mock(HandlerPool.class);
+        HandlerPool<ParseResultValidator<StringWrapper>> validatorPool = mock(HandlerPool.class);
+        when(parserPool.acquire()).thenReturn(parser);
+        when(validatorPool.acquire()).thenReturn(validator);
+        var invoiceProcessor = new InvoiceProcessor<String, StringWrapper>(
+                filter,
+                retriever,
+                parserPool,
+                new HandlerPool[]{validatorPool}, validationThreshold,
+                loader,
+                rectifier,
+                saver,
+                disposer,
+                null);
+        when(filter.filter("input")).thenReturn(true);
+        var file = mock(File.class);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(file));
+        var parsed = new StringWrapper("parsed");
+        when(parser.parseInvoice(file)).thenReturn(parsed);
+        when(validator.validate(parsed)).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        invoiceProcessor.warmUp();
+        invoiceProcessor.process("input");
+        invoiceProcessor.close();
+
+        // Assert
+        verify(parserPool).warmUp();
+        verify(parserPool).release(parser);
+        verify(parserPool).close();
+        verify(validatorPool).warmUp();
+        verify(validatorPool).release(validator);
+        verify(validatorPool).close();
+        verify(saver).saveAndNotifySuccess(parsed);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenParallelismIsConfigured_ProcessFilesConcurrentlyWithPooledParsers() {
+        // Arrange
+        var concurrent = new AtomicInteger();
+        var maxConcurrent = new AtomicInteger();
+        var parserPool = new BoundedHandlerPool<InvoiceParserStepHandler<StringWrapper>>(() -> new InvoiceParserStepHandler<>() {
+            private boolean busy;
+
+            @Override
+            public StringWrapper parseInvoice(File input) {
+                assertFalse(busy, "Pooled parser used concurrently");
+                busy = true;
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                concurrent.decrementAndGet();
+                busy = false;
+                return new StringWrapper(input.getName());
+            }
+        }, 2);
+        var invoiceProcessor = new InvoiceProcessor<String, StringWrapper>(
+                filter,
+                retriever,
+                parserPool,
+                new HandlerPool[]{new SharedHandlerPool<>(validator)}, validationThreshold,
+                loader,
+                rectifier,
+                saver,
+                disposer,
+                null).withParallelism(4);
+        var files = List.of(new File("a"), new File("b"), new File("c"), new File("d"));
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(files);
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        try (invoiceProcessor) {
+            invoiceProcessor.warmUp();
+            invoiceProcessor.process("input");
+        }
+
+        // Assert
+        assertEquals(2, maxConcurrent.get());
+        verify(loader, times(4)).loadInvoice(any());
+        verify(saver, times(4)).saveAndNotifySuccess(any());
+        verify(disposer).dispose(files);
+    }
+
+    @Test
+    void whenParallelFileFailsToSave_PropagateExceptionAfterAllFiles() {
+        // Arrange
+        processor.withParallelism(2);
+        var file1 = new File("a");
+        var file2 = new File("b");
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(file1, file2));
+        when(parser.parseInvoice(file1)).thenThrow(new RuntimeException("boom"));
+        when(parser.parseInvoice(file2)).thenReturn(new StringWrapper("parsed"));
+        when(validator.validate(new StringWrapper("parsed"))).thenReturn(validationThreshold + 0.1);
+        doThrow(new IllegalStateException("save")).when(saver).saveAndNotifyFailure(file1, null);
+
+        // Act
+        var ex = assertThrows(IllegalStateException.class, () -> processor.process("input"));
+        processor.close();
+
+        // Assert
+        assertEquals("save", ex.getMessage());
+        verify(saver).saveAndNotifySuccess(new StringWrapper("parsed"));
+        verifyNoInteractions(disposer);
+    }
+
+    @Test
+    void whenFilesAreAlreadyRetrieved_SkipFilterAndRetrieval() {
+        // Arrange
+        var file = mock(File.class);
+        var parsed = new StringWrapper("parsed");
+        when(parser.parseInvoice(file)).thenReturn(parsed);
+        when(validator.validate(parsed)).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        processor.process("input", List.of(file));
+
+        // Assert
+        verify(loader).loadInvoice(parsed);
+        verify(saver).saveAndNotifySuccess(parsed);
+        verify(disposer).dispose(List.of(file));
+        verifyNoInteractions(filter, retriever);
+    }
+
+    @Test
+    void whenArchiveExpansionIsEnabled_ParseEachEntryFromStream(@TempDir Path directory) throws IOException {
+        // Arrange
+        processor.withArchiveExpansion();
+        var archive = zip(directory.resolve("invoices.zip"), "a.pdf", "dir/b.pdf").toFile();
+        var plain = directory.resolve("plain.pdf").toFile();
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(archive, plain));
+        when(parser.parseInvoice(anyString(), any(InputStream.class)))
+                .thenAnswer(inv -> new StringWrapper(new String(inv.getArgument(1, InputStream.class).readAllBytes(), StandardCharsets.UTF_8)));
+        when(parser.parseInvoice(plain)).thenReturn(new StringWrapper("plain.pdf"));
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        processor.process("input");
+
+        // Assert
+        verify(parser).parseInvoice(eq("a.pdf"), any(InputStream.class));
+        verify(parser).parseInvoice(eq("dir/b.pdf"), any(InputStream.class));
+        verify(saver).saveAndNotifySuccess(new StringWrapper("a.pdf"));
+        verify(saver).saveAndNotifySuccess(new StringWrapper("dir/b.pdf"));
+        verify(saver).saveAndNotifySuccess(new StringWrapper("plain.pdf"));
+        verify(parser, never()).parseInvoice(archive);
+        verify(disposer).dispose(List.of(archive, plain));
+    }
+
+    @Test
+    void whenArchiveEntryFails_SaveAndNotifyEntryFailure(@TempDir Path directory) throws IOException {
+        // Arrange
+        processor.withArchiveExpansion().withParallelism(2);
+        var archive = zip(directory.resolve("invoices.zip"), "a.pdf", "b.pdf").toFile();
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(archive));
+        when(parser.parseInvoice(eq("a.pdf"), any(InputStream.class))).thenReturn(new StringWrapper("a.pdf"));
+        when(parser.parseInvoice(eq("b.pdf"), any(InputStream.class))).thenThrow(new RuntimeException("boom"));
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        assertDoesNotThrow(() -> processor.process("input"));
+        processor.close();
+
+        // Assert
+        verify(saver).saveAndNotifySuccess(new StringWrapper("a.pdf"));
+        verify(saver).saveAndNotifyFailure(eq(archive), eq("b.pdf"), argThat(entry -> entry.getName().equals("b.pdf")), isNull());
+        verify(disposer).dispose(List.of(archive));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenArchiveEntryFailsWithDefaultSaver_SaveTemporaryCopyOfEntry(@TempDir Path directory) throws IOException {
+        // Arrange
+        var saved = new ArrayList<String>();
+        var copies = new ArrayList<File>();
+        ParseSaveStepHandler<StringWrapper> fileSaver = new ParseSaveStepHandler<>() {
+            @Override
+            public void saveAndNotifySuccess(StringWrapper parsedInvoice) {
+            }
+
+            @Override
+            public void saveAndNotifyFailure(File rawInvoice, StringWrapper parsedInvoice) {
+                copies.add(rawInvoice);
+                try {
+                    saved.add(rawInvoice.getName() + ":" + Files.readString(rawInvoice.toPath()));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        var invoiceProcessor = new InvoiceProcessor<String, StringWrapper>(
+                filter,
+                retriever,
+                parser,
+                new ParseResultValidator[]{validator},
+                loader,
+                rectifier,
+                fileSaver,
+                disposer,
+                null).withArchiveExpansion();
+        var archive = zip(directory.resolve("invoices.zip"), "dir/b.pdf").toFile();
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(archive));
+        when(parser.parseInvoice(eq("dir/b.pdf"), any(InputStream.class))).thenThrow(new RuntimeException("boom"));
+
+        // Act
+        assertDoesNotThrow(() -> invoiceProcessor.process("input"));
+
+        // Assert
+        assertEquals(List.of("b.pdf:dir/b.pdf"), saved);
+        assertFalse(copies.get(0).exists());
+        verify(disposer).dispose(List.of(archive));
+    }
+
+    @Test
+    void whenArchiveExtensionIsUpperCase_ExpandRegardlessOfLocale(@TempDir Path directory) throws IOException {
+        // Arrange
+        var locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            processor.withArchiveExpansion();
+            var archive = zip(directory.resolve("INVOICES.ZIP"), "a.pdf").toFile();
+            when(filter.filter("input")).thenReturn(true);
+            when(retriever.retrieveFile("input")).thenReturn(List.of(archive));
+            when(parser.parseInvoice(eq("a.pdf"), any(InputStream.class))).thenReturn(new StringWrapper("a.pdf"));
+            when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+
+            // Act
+            processor.process("input");
+
+            // Assert
+            verify(saver).saveAndNotifySuccess(new StringWrapper("a.pdf"));
+            verify(parser, never()).parseInvoice(archive);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void whenArchiveCannotBeOpened_SaveAndNotifyFailure(@TempDir Path directory) throws IOException {
+        // Arrange
+        processor.withArchiveExpansion();
+        var archive = Files.writeString(directory.resolve("broken.zip"), "not a zip").toFile();
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(archive));
+
+        // Act
+        assertDoesNotThrow(() -> processor.process("input"));
+
+        // Assert
+        verify(saver).saveAndNotifyFailure(archive, null);
+        verify(disposer).dispose(List.of(archive));
+        verifyNoInteractions(parser, validator, loader);
+    }
+
+    @Test
+    void whenParserDoesNotStream_ParseSpooledCopyOfContent() {
+        // Arrange
+        var spooled = new File[1];
+        InvoiceParserStepHandler<String> fileParser = input -> {
+            spooled[0] = input;
+            try {
+                return Files.readString(input.toPath());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        };
+
+        // Act
+        var parsed = fileParser.parseInvoice("dir/a.pdf", new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals("content", parsed);
+        assertTrue(spooled[0].getName().endsWith(".pdf"));
+        assertFalse(spooled[0].exists());
+    }
+
+    @Test
+    void whenPartitioningIsEnabled_LoadInOrderWithinKeyAndInParallelAcrossKeys() {
+        // Arrange
+        processor.withPartitioning(invoice -> invoice.getValue().charAt(0)).withParallelism(2);
+        var files = List.of(new File("A1"), new File("B1"), new File("A2"), new File("B2"), new File("A3"));
+        var loaded = Collections.synchronizedList(new ArrayList<String>());
+        var laneStarted = new CountDownLatch(2);
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(files);
+        when(parser.parseInvoice(any(File.class))).thenAnswer(inv -> new StringWrapper(inv.getArgument(0, File.class).getName()));
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+        doAnswer(inv -> {
+            String value = inv.getArgument(0, StringWrapper.class).getValue();
+            if (value.endsWith("1")) {
+                laneStarted.countDown();
+                assertTrue(laneStarted.await(5, TimeUnit.SECONDS), "Lanes were not loaded in parallel");
+            }
+            loaded.add(value);
+            return null;
+        }).when(loader).loadInvoice(any());
+
+        // Act
+        processor.process("input");
+        processor.close();
+
+        // Assert
+        assertEquals(List.of("A1", "A2", "A3"), loaded.stream().filter(value -> value.startsWith("A")).toList());
+        assertEquals(List.of("B1", "B2"), loaded.stream().filter(value -> value.startsWith("B")).toList());
+        verify(saver, times(5)).saveAndNotifySuccess(any());
+        verify(disposer).dispose(files);
+    }
+
+    @Test
+    void whenPartitioningIsEnabled_LoadOnlyValidInvoices() {
+        // Arrange
+        processor.withPartitioning(StringWrapper::getValue);
+        var valid = mock(File.class);
+        var invalid = mock(File.class);
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(valid, invalid));
+        when(parser.parseInvoice(valid)).thenReturn(new StringWrapper("valid"));
+        when(parser.parseInvoice(invalid)).thenReturn(new StringWrapper("invalid"));
+        when(validator.validate(new StringWrapper("valid"))).thenReturn(validationThreshold + 0.1);
+        when(validator.validate(new StringWrapper("invalid"))).thenReturn(validationThreshold - 0.1);
+        when(rectifier.rectifyParsedInvoice(new StringWrapper("invalid"))).thenReturn(false);
+
+        // Act
+        processor.process("input");
+
+        // Assert
+        verify(loader).loadInvoice(new StringWrapper("valid"));
+        verify(saver).saveAndNotifySuccess(new StringWrapper("valid"));
+        verify(saver).saveAndNotifyFailure(invalid, new StringWrapper("invalid"));
+        verifyNoMoreInteractions(loader, saver);
+    }
+
+    @Test
+    void whenFailureCannotBeSavedInLane_KeepLoadingRestOfLaneAndRethrow() {
+        // Arrange
+        processor.withPartitioning(invoice -> "same");
+        var first = new File("first");
+        var second = new File("second");
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(first, second));
+        when(parser.parseInvoice(any(File.class))).thenAnswer(inv -> new StringWrapper(inv.getArgument(0, File.class).getName()));
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+        doThrow(new RuntimeException("load")).when(loader).loadInvoice(new StringWrapper("first"));
+        doThrow(new IllegalStateException("save")).when(saver).saveAndNotifyFailure(first, new StringWrapper("first"));
+
+        // Act
+        var ex = assertThrows(IllegalStateException.class, () -> processor.process("input"));
+
+        // Assert
+        assertEquals("save", ex.getMessage());
+        verify(loader).loadInvoice(new StringWrapper("second"));
+        verify(saver).saveAndNotifySuccess(new StringWrapper("second"));
+    }
+
+    @Test
+    void whenParseFailureCannotBeSaved_LoadEveryLaneAndRethrow() {
+        // Arrange
+        processor.withPartitioning(invoice -> invoice.getValue().charAt(0));
+        var bad = new File("bad");
+        var a1 = new File("a1");
+        var b1 = new File("b1");
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(bad, a1, b1));
+        when(parser.parseInvoice(any(File.class))).thenAnswer(inv -> {
+            var file = inv.getArgument(0, File.class);
+            if (file.equals(bad)) {
+                throw new RuntimeException("corrupt");
+            }
+            return new StringWrapper(file.getName());
+        });
+        when(validator.validate(any())).thenReturn(validationThreshold + 0.1);
+        doThrow(new IllegalStateException("save")).when(saver).saveAndNotifyFailure(bad, null);
+
+        // Act
+        var ex = assertThrows(IllegalStateException.class, () -> processor.process("input"));
+
+        // Assert
+        assertEquals("save", ex.getMessage());
+        verify(loader).loadInvoice(new StringWrapper("a1"));
+        verify(loader).loadInvoice(new StringWrapper("b1"));
+        verify(saver).saveAndNotifySuccess(new StringWrapper("a1"));
+        verify(saver).saveAndNotifySuccess(new StringWrapper("b1"));
+    }
+
+    @Test
+    void whenPartitionKeyCannotBeExtracted_SaveAndNotifyFailure() {
+        // Arrange
+        processor.withPartitioning(invoice -> {
+            throw new RuntimeException("boom");
+        });
+        var file = mock(File.class);
+        var parsed = new StringWrapper("parsed");
+        when(filter.filter("input")).thenReturn(true);
+        when(retriever.retrieveFile("input")).thenReturn(List.of(file));
+        when(parser.parseInvoice(file)).thenReturn(parsed);
+        when(validator.validate(parsed)).thenReturn(validationThreshold + 0.1);
+
+        // Act
+        assertDoesNotThrow(() -> processor.process("input"));
+
+        // Assert
+        verify(saver).saveAndNotifyFailure(file, parsed);
+        verify(disposer).dispose(List.of(file));
+        verifyNoInteractions(loader);
+    }
+
+    /**
+     * Waits until the thread is parked, i.e. a single-flight follower attached to the running execution.
+     */
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue(System.nanoTime() - deadline < 0, "Thread did not attach to the running execution");
+            Thread.sleep(1);
+        }
+    }
+
+    private static Path zip(Path path, String... entries) throws IOException {
+        try (var zip = new ZipOutputStream(Files.newOutputStream(path))) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.write(entry.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return path;
+    }
+
+    private abstract static class ClosingParser implements InvoiceParserStepHandler<StringWrapper>, AutoCloseable {
+        protected volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
     private static class StringWrapper {
         private String value;
 
@@ -0,0 +1,170 @@
+package com.rucavi.invoice.processor.pool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HandlerPoolTests {
+    @Test
+    void whenSharedPoolIsAcquired_ReturnSameHandler() {
+        var handler = new CloseableHandler();
+        var pool = new SharedHandlerPool<>(handler);
+
+        assertSame(handler, pool.acquire());
+        assertSame(handler, pool.acquire());
+
+        pool.close();
+        assertFalse(handler.closed);
+    }
+
+    @Test
+    void whenBoundedPoolMaxSizeIsInvalid_IllegalArgumentExceptionIsThrown() {
+        Executable fail = () -> new BoundedHandlerPool<>(CloseableHandler::new, 0);
+
+        assertThrows(IllegalArgumentException.class, fail);
+    }
+
+    @Test
+    void whenBoundedPoolHandlerIsReleased_ReuseIt() {
+        var created = new AtomicInteger();
+        var pool = new BoundedHandlerPool<>(() -> {
+            created.incrementAndGet();
+            return new CloseableHandler();
+        }, 2);
+
+        var first = pool.acquire();
+        pool.release(first);
+        var second = pool.acquire();
+
+        assertSame(first, second);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void whenBoundedPoolIsExhausted_WaitForRelease() throws Exception {
+        var pool = new BoundedHandlerPool<>(CloseableHandler::new, 1);
+        var handler = pool.acquire();
+
+        var waiting = CompletableFuture.supplyAsync(pool::acquire);
+        assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+        pool.release(handler);
+
+        assertSame(handler, waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void whenBoundedPoolIsWarmedUp_CreateAllHandlers() {
+        var created = new AtomicInteger();
+        var pool = new BoundedHandlerPool<>(() -> {
+            created.incrementAndGet();
+            return new CloseableHandler();
+        }, 3);
+
+        pool.warmUp();
+        pool.acquire();
+
+        assertEquals(3, created.get());
+    }
+
+    @Test
+    void whenBoundedPoolFactoryFails_ReleaseReservedSlot() {
+        var attempts = new AtomicInteger();
+        var pool = new BoundedHandlerPool<>(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new RuntimeException("boom");
+            }
+            return new CloseableHandler();
+        }, 1);
+
+        assertThrows(RuntimeException.class, pool::acquire);
+        assertNotNull(pool.acquire());
+    }
+
+    @Test
+    void whenBoundedPoolIsClosed_CloseIdleHandlersAndRejectAcquire() {
+        var pool = new BoundedHandlerPool<>(CloseableHandler::new, 2);
+        var idle = pool.acquire();
+        var inUse = pool.acquire();
+        pool.release(idle);
+
+        pool.close();
+        assertEquals(1, idle.closeCount.get());
+        assertEquals(0, inUse.closeCount.get());
+        assertThrows(IllegalStateException.class, pool::acquire);
+    }
+
+    @Test
+    void whenHandlerIsReleasedAfterClose_CloseItOnce() {
+        var pool = new BoundedHandlerPool<>(CloseableHandler::new, 1);
+        var inUse = pool.acquire();
+
+        pool.close();
+        pool.release(inUse);
+        pool.close();
+
+        assertEquals(1, inUse.closeCount.get());
+    }
+
+    @Test
+    void whenBoundedPoolIsClosedWhileWaiting_WakeUpWaiter() throws Exception {
+        var pool = new BoundedHandlerPool<>(CloseableHandler::new, 1);
+        pool.acquire();
+        var waiting = CompletableFuture.supplyAsync(pool::acquire);
+        assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+
+        pool.close();
+
+        var error = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+
+    @Test
+    void whenThreadLocalPoolIsAcquired_ReturnOneHandlerPerThread() throws Exception {
+        var pool = new ThreadLocalHandlerPool<>(CloseableHandler::new);
+
+        var first = pool.acquire();
+        var other = CompletableFuture.supplyAsync(pool::acquire).get(5, TimeUnit.SECONDS);
+
+        assertSame(first, pool.acquire());
+        assertNotSame(first, other);
+
+        pool.close();
+        assertTrue(first.closed);
+        assertTrue(other.closed);
+        assertThrows(IllegalStateException.class, pool::acquire);
+    }
+
+    @Test
+    void whenHandlerFailsToClose_CloseTheRestAndThrow() {
+        var healthy = new CloseableHandler();
+        AutoCloseable failing = () -> {
+            throw new Exception("boom");
+        };
+        var handlers = new ArrayDeque<>(List.of(failing, healthy));
+        var pool = new BoundedHandlerPool<>(handlers::poll, 2);
+        pool.warmUp();
+
+        assertThrows(IllegalStateException.class, pool::close);
+        assertTrue(healthy.closed);
+    }
+
+    private static class CloseableHandler implements AutoCloseable {
+        private final AtomicInteger closeCount = new AtomicInteger();
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closeCount.incrementAndGet();
+            closed = true;
+        }
+    }
+}
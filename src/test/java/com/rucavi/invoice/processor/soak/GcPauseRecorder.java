@@ -0,0 +1,72 @@
+package com.rucavi.invoice.processor.soak;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the stop-the-world pauses of the garbage collectors from their notifications.
+ * <p>
+ * Collectors reporting whole concurrent cycles through a separate bean, such as the
+ * {@code Cycles} beans of ZGC and Shenandoah, are skipped, as their durations are not pauses.
+ */
+class GcPauseRecorder implements AutoCloseable {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onNotification;
+
+    GcPauseRecorder() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter && !collector.getName().endsWith("Cycles")) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long totalMillis() {
+        return totalMillis.get();
+    }
+
+    long maxMillis() {
+        return maxMillis.get();
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // Nothing to remove
+            }
+        }
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+
+        var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long duration = info.getGcInfo().getDuration();
+        count.incrementAndGet();
+        totalMillis.addAndGet(duration);
+        maxMillis.accumulateAndGet(duration, Math::max);
+    }
+}
@@ -0,0 +1,78 @@
+package com.rucavi.invoice.processor.soak;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe recorder of latencies that reports percentiles.
+ * <p>
+ * Latencies are counted in a fixed-size histogram with logarithmic buckets, so memory usage
+ * stays constant over long runs. Values below {@value #SUB_BUCKETS} are recorded exactly, and
+ * every larger power of two is split into {@value #SUB_BUCKETS} buckets, which bounds the
+ * relative error of the reported percentiles to about 1.6%.
+ */
+class LatencyRecorder {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long latencyNanos) {
+        long value = Math.max(0, latencyNanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * Computes a percentile of the recorded latencies using the nearest-rank method.
+     *
+     * @param percentile The percentile to compute, between 0 and 100.
+     * @return The highest latency of the bucket holding the percentile in nanoseconds,
+     * or 0 if nothing was recorded.
+     */
+    long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+
+        // Tolerate the rounding of percentiles such as 99.9 before taking the ceiling
+        long rank = Math.max(1, (long) Math.ceil(percentile * total / 100.0 - 1e-9));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
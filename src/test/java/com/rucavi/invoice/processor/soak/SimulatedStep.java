@@ -0,0 +1,49 @@
+package com.rucavi.invoice.processor.soak;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and error rate of a stand-in step handler.
+ *
+ * @param meanLatencyMicros The mean latency of the step in microseconds.
+ * @param jitter            The maximum deviation from the mean, as a fraction of it.
+ * @param errorRate         The probability of the step failing on any call.
+ */
+record SimulatedStep(long meanLatencyMicros, double jitter, double errorRate) {
+    static final SimulatedStep INSTANT = new SimulatedStep(0, 0, 0);
+
+    SimulatedStep {
+        if (meanLatencyMicros < 0 || jitter < 0 || jitter > 1 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException(
+                    "Invalid simulated step " + meanLatencyMicros + "/" + jitter + "/" + errorRate);
+        }
+    }
+
+    /**
+     * Waits for the simulated latency and fails according to the error rate.
+     * <p>
+     * The latency and the failure are drawn from the given seed, so the same seed
+     * always produces the same outcome regardless of the thread running the step.
+     *
+     * @param step The name of the step, used in the failure message.
+     * @param seed The seed of this run of the step.
+     */
+    void run(String step, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        if (meanLatencyMicros > 0) {
+            double deviation = jitter == 0 ? 0 : random.nextDouble(-jitter, jitter);
+            long latency = Math.round(meanLatencyMicros * (1 + deviation));
+            try {
+                TimeUnit.MICROSECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating " + step, e);
+            }
+        }
+
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            throw new IllegalStateException("Simulated " + step + " failure");
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.rucavi.invoice.processor.soak;
+
+import com.rucavi.invoice.processor.InvoiceProcessor;
+import com.rucavi.invoice.processor.handlers.*;
+import com.rucavi.invoice.processor.pool.BoundedHandlerPool;
+import com.rucavi.invoice.processor.pool.HandlerPool;
+import com.rucavi.invoice.processor.pool.SharedHandlerPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load and soak harness for {@link InvoiceProcessor}.
+ * <p>
+ * For every concurrency level, a processor with that parallelism and a parser pool of the
+ * same size repeatedly processes batches of synthetic invoices for the configured duration,
+ * using stand-in handlers with tunable latency and error rates. The harness reports the
+ * throughput, the per-file latency percentiles from retrieval to save, the peak heap usage
+ * and the garbage collection pauses of every level. Everything runs offline on local
+ * temporary files.
+ * <p>
+ * The simulated latencies and failures of every step are seeded from the configured seed
+ * and the name of each invoice, so the same configuration produces the same outcome for
+ * every invoice regardless of the thread processing it.
+ */
+class SoakHarness {
+    /**
+     * Configuration of a harness run.
+     *
+     * @param concurrencyLevels The parallelism levels to sweep.
+     * @param durationPerLevel  The time every level runs for.
+     * @param batchSize         The number of files retrieved for every input.
+     * @param minSize           The minimum size of the generated files in bytes.
+     * @param maxSize           The maximum size of the generated files in bytes.
+     * @param failureMix        The probability of every failing kind of invoice.
+     * @param parse             The simulation of the parse step.
+     * @param load              The simulation of the load step.
+     * @param save              The simulation of the save step.
+     * @param seed              The seed of the invoice generator and of the simulated steps.
+     */
+    record Config(List<Integer> concurrencyLevels, Duration durationPerLevel, int batchSize,
+                  int minSize, int maxSize, Map<SyntheticInvoice.Kind, Double> failureMix,
+                  SimulatedStep parse, SimulatedStep load, SimulatedStep save, long seed) {
+
+        /**
+         * Reads the configuration from {@code soak.*} system properties, defaulting to a short run.
+         *
+         * @return The configuration.
+         */
+        static Config fromSystemProperties() {
+            return new Config(
+                    Arrays.stream(System.getProperty("soak.concurrency", "1,2,4,8").split(","))
+                            .map(String::trim).map(Integer::parseInt).toList(),
+                    Duration.parse(System.getProperty("soak.duration", "PT10S")),
+                    Integer.getInteger("soak.batchSize", 200),
+                    Integer.getInteger("soak.minSize", 2 * 1024),
+                    Integer.getInteger("soak.maxSize", 64 * 1024),
+                    parseFailureMix(System.getProperty("soak.failureMix", "CORRUPT=0.02,INVALID=0.03,UNLOADABLE=0.01")),
+                    parseStep(System.getProperty("soak.parse", "2000,0.5,0.0")),
+                    parseStep(System.getProperty("soak.load", "500,0.5,0.01")),
+                    parseStep(System.getProperty("soak.save", "200,0.5,0.0")),
+                    Long.getLong("soak.seed", 42L));
+        }
+
+        private static Map<SyntheticInvoice.Kind, Double> parseFailureMix(String value) {
+            Map<SyntheticInvoice.Kind, Double> mix = new EnumMap<>(SyntheticInvoice.Kind.class);
+            for (String pair : value.split(",")) {
+                if (pair.isBlank()) {
+                    continue;
+                }
+                String[] parts = pair.split("=");
+                mix.put(SyntheticInvoice.Kind.valueOf(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+            }
+            return mix;
+        }
+
+        private static SimulatedStep parseStep(String value) {
+            String[] parts = value.split(",");
+            return new SimulatedStep(Long.parseLong(parts[0].trim()),
+                    Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()));
+        }
+    }
+
+    /**
+     * Measurements of a concurrency level.
+     *
+     * @param concurrency   The parallelism of the processor.
+     * @param files         The number of files saved as succeeded or failed.
+     * @param succeeded     The number of files saved as succeeded.
+     * @param failed        The number of files saved as failed.
+     * @param processErrors The number of inputs whose processing threw.
+     * @param throughput    The number of files saved per second.
+     * @param p50Nanos      The median per-file latency.
+     * @param p99Nanos      The 99th percentile of the per-file latency.
+     * @param p999Nanos     The 99.9th percentile of the per-file latency.
+     * @param peakHeapBytes The sum of the peak usages of every heap memory pool.
+     * @param gcPauses      The number of garbage collection pauses.
+     * @param gcPauseMillis The accumulated duration of the garbage collection pauses.
+     * @param maxGcPauseMillis The longest garbage collection pause.
+     */
+    record Result(int concurrency, long files, long succeeded, long failed, long processErrors, double throughput,
+                  long p50Nanos, long p99Nanos, long p999Nanos, long peakHeapBytes,
+                  long gcPauses, long gcPauseMillis, long maxGcPauseMillis) {
+    }
+
+    private final Config config;
+
+    SoakHarness(Config config) {
+        this.config = Objects.requireNonNull(config, "Config must be provided");
+    }
+
+    /**
+     * Runs every concurrency level in turn.
+     *
+     * @param workDirectory The directory the synthetic invoices are generated in.
+     * @return The measurements of every level.
+     */
+    List<Result> run(Path workDirectory) {
+        List<Result> results = new ArrayList<>();
+        for (int concurrency : config.concurrencyLevels()) {
+            results.add(runLevel(concurrency, workDirectory.resolve("level-" + concurrency)));
+        }
+        return results;
+    }
+
+    /**
+     * Formats the measurements as a table.
+     *
+     * @param results The measurements of every level.
+     * @return The report.
+     */
+    static String report(List<Result> results) {
+        StringBuilder report = new StringBuilder(String.format(
+                "%11s %8s %8s %8s %7s %10s %9s %9s %9s %10s %6s %11s %12s%n",
+                "concurrency", "files", "ok", "failed", "errors", "files/s", "p50 ms", "p99 ms", "p999 ms",
+                "heap MB", "pauses", "pause ms", "max pause ms"));
+        for (Result result : results) {
+            report.append(String.format("%11d %8d %8d %8d %7d %10.1f %9.2f %9.2f %9.2f %10.1f %6d %11d %12d%n",
+                    result.concurrency(), result.files(), result.succeeded(), result.failed(), result.processErrors(),
+                    result.throughput(), result.p50Nanos() / 1e6, result.p99Nanos() / 1e6, result.p999Nanos() / 1e6,
+                    result.peakHeapBytes() / (1024.0 * 1024.0), result.gcPauses(), result.gcPauseMillis(),
+                    result.maxGcPauseMillis()));
+        }
+        return report.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path workDirectory = Files.createTempDirectory("invoice-soak-");
+        System.out.print(report(new SoakHarness(Config.fromSystemProperties()).run(workDirectory)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Result runLevel(int concurrency, Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        var generator = new SyntheticInvoiceGenerator(directory, config.minSize(), config.maxSize(),
+                config.failureMix(), config.seed());
+        var retrievedAt = new ConcurrentHashMap<File, Long>();
+        var latencies = new LatencyRecorder();
+        var succeeded = new LongAdder();
+        var failed = new LongAdder();
+
+        FileRetrievalStepHandler<Long> retriever = batch -> {
+            List<File> files = generator.generate(config.batchSize());
+            long now = System.nanoTime();
+            files.forEach(file -> retrievedAt.put(file, now));
+            return files;
+        };
+        InvoiceParserStepHandler<SyntheticInvoice> parser = file -> {
+            SyntheticInvoice.Kind kind;
+            try {
+                kind = SyntheticInvoiceGenerator.readKind(Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            config.parse().run("parse", stepSeed(file, "parse"));
+            if (kind == SyntheticInvoice.Kind.CORRUPT) {
+                throw new IllegalStateException("Corrupt invoice " + file);
+            }
+            return new SyntheticInvoice(file, kind, retrievedAt.get(file));
+        };
+        ParseResultValidator<SyntheticInvoice> validator = invoice ->
+                invoice.kind() == SyntheticInvoice.Kind.INVALID ? 0.0 : 1.0;
+        InvoiceLoadStepHandler<SyntheticInvoice> loader = invoice -> {
+            config.load().run("load", stepSeed(invoice.file(), "load"));
+            if (invoice.kind() == SyntheticInvoice.Kind.UNLOADABLE) {
+                throw new IllegalStateException("Unloadable invoice " + invoice.file());
+            }
+        };
+        ParseSaveStepHandler<SyntheticInvoice> saver = new ParseSaveStepHandler<>() {
+            @Override
+            public void saveAndNotifySuccess(SyntheticInvoice parsedInvoice) {
+                try {
+                    config.save().run("save", stepSeed(parsedInvoice.file(), "save"));
+                } finally {
+                    latencies.record(System.nanoTime() - parsedInvoice.startedAt());
+                    succeeded.increment();
+                }
+            }
+
+            @Override
+            public void saveAndNotifyFailure(File rawInvoice, SyntheticInvoice parsedInvoice) {
+                try {
+                    config.save().run("save", stepSeed(rawInvoice, "save"));
+                } finally {
+                    latencies.record(System.nanoTime() - retrievedAt.get(rawInvoice));
+                    failed.increment();
+                }
+            }
+        };
+        DisposeStepHandler disposer = files -> files.forEach(file -> {
+            retrievedAt.remove(file);
+            file.delete();
+        });
+
+        var processor = new InvoiceProcessor<Long, SyntheticInvoice>(
+                null,
+                retriever,
+                new BoundedHandlerPool<>(() -> parser, concurrency),
+                new HandlerPool[]{new SharedHandlerPool<>(validator)}, 1.0,
+                loader,
+                invoice -> false,
+                saver,
+                disposer,
+                null).withParallelism(concurrency);
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long processErrors = 0;
+        var gcPauses = new GcPauseRecorder();
+        long start = System.nanoTime();
+        long deadline = start + config.durationPerLevel().toNanos();
+        try (processor; gcPauses) {
+            processor.warmUp();
+            for (long batch = 0; System.nanoTime() - deadline < 0; batch++) {
+                try {
+                    processor.process(batch);
+                } catch (RuntimeException e) {
+                    processErrors++;
+                    // Files of a failed input are not disposed of by the processor
+                    retrievedAt.keySet().forEach(File::delete);
+                    retrievedAt.clear();
+                }
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        return new Result(concurrency, latencies.count(), succeeded.sum(), failed.sum(), processErrors,
+                latencies.count() / elapsedSeconds,
+                latencies.percentile(50), latencies.percentile(99), latencies.percentile(99.9),
+                peakHeap, gcPauses.count(), gcPauses.totalMillis(), gcPauses.maxMillis());
+    }
+
+    private long stepSeed(File file, String step) {
+        return Objects.hash(config.seed(), file.getName(), step);
+    }
+}
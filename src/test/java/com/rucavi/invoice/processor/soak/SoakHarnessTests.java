@@ -0,0 +1,159 @@
+package com.rucavi.invoice.processor.soak;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a short smoke configuration of the soak harness on every build.
+ * <p>
+ * Full soak runs are enabled by setting the duration of every level, e.g.
+ * {@code mvn test -Dtest=SoakHarnessTests -Dsoak.duration=PT30M -Dsoak.concurrency=1,4,16}.
+ */
+public class SoakHarnessTests {
+    @Test
+    void whenHarnessRuns_ReportEveryConcurrencyLevel(@TempDir Path directory) {
+        // Arrange
+        var config = new SoakHarness.Config(List.of(1, 4), Duration.ofMillis(300), 20, 64, 512,
+                Map.of(SyntheticInvoice.Kind.CORRUPT, 0.1, SyntheticInvoice.Kind.INVALID, 0.1),
+                new SimulatedStep(200, 0.5, 0.0),
+                new SimulatedStep(100, 0.5, 0.05),
+                SimulatedStep.INSTANT,
+                7L);
+
+        // Act
+        var results = new SoakHarness(config).run(directory);
+
+        // Assert
+        assertEquals(List.of(1, 4), results.stream().map(SoakHarness.Result::concurrency).toList());
+        for (var result : results) {
+            assertTrue(result.files() > 0);
+            assertTrue(result.succeeded() > 0);
+            assertTrue(result.failed() > 0);
+            assertEquals(result.files(), result.succeeded() + result.failed());
+            assertTrue(result.p50Nanos() <= result.p99Nanos());
+            assertTrue(result.p99Nanos() <= result.p999Nanos());
+            assertTrue(result.peakHeapBytes() > 0);
+            assertTrue(result.maxGcPauseMillis() <= result.gcPauseMillis());
+        }
+        assertEquals(3, SoakHarness.report(results).lines().count());
+    }
+
+    @Test
+    void whenFilesAreGenerated_FollowSizesAndFailureMix(@TempDir Path directory) throws IOException {
+        // Arrange
+        var generator = new SyntheticInvoiceGenerator(directory, 100, 200,
+                Map.of(SyntheticInvoice.Kind.CORRUPT, 1.0), 1L);
+
+        // Act
+        var files = generator.generate(10);
+
+        // Assert
+        assertEquals(10, files.size());
+        for (var file : files) {
+            byte[] content = Files.readAllBytes(file.toPath());
+            assertTrue(content.length >= 100 && content.length <= 200);
+            assertEquals(SyntheticInvoice.Kind.CORRUPT, SyntheticInvoiceGenerator.readKind(content));
+        }
+    }
+
+    @Test
+    void whenFilesAreGeneratedWithSameSeed_ReproduceFailureMix(@TempDir Path directory) throws IOException {
+        // Arrange
+        var mix = new HashMap<SyntheticInvoice.Kind, Double>();
+        mix.put(SyntheticInvoice.Kind.UNLOADABLE, 0.3);
+        mix.put(SyntheticInvoice.Kind.CORRUPT, 0.3);
+        mix.put(SyntheticInvoice.Kind.INVALID, 0.3);
+        var first = new SyntheticInvoiceGenerator(Files.createDirectory(directory.resolve("first")), 10, 10, mix, 3L);
+        var second = new SyntheticInvoiceGenerator(Files.createDirectory(directory.resolve("second")), 10, 10,
+                new TreeMap<>(mix).descendingMap(), 3L);
+
+        // Act & Assert
+        assertEquals(kinds(first.generate(50)), kinds(second.generate(50)));
+    }
+
+    @Test
+    void whenStepsRunWithSameSeed_ReproduceFailuresOnAnyThread() throws Exception {
+        // Arrange
+        var step = new SimulatedStep(0, 0.0, 0.5);
+
+        // Act
+        var first = failures(step);
+        var second = new ArrayList<Long>();
+        Thread thread = new Thread(() -> second.addAll(failures(step)));
+        thread.start();
+        thread.join();
+
+        // Assert
+        assertFalse(first.isEmpty());
+        assertTrue(first.size() < 100);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void whenLatenciesAreRecorded_ComputeNearestRankPercentiles() {
+        var recorder = new LatencyRecorder();
+        for (long latency = 1; latency <= 1000; latency++) {
+            recorder.record(latency);
+        }
+
+        assertEquals(1000, recorder.count());
+        assertEquals(500, recorder.percentile(50), 500 * 0.016);
+        assertEquals(990, recorder.percentile(99), 990 * 0.016);
+        assertEquals(999, recorder.percentile(99.9), 999 * 0.016);
+        assertEquals(1000, recorder.percentile(100));
+        assertEquals(0, new LatencyRecorder().percentile(50));
+    }
+
+    @Test
+    void whenSmallAndLargeLatenciesAreRecorded_KeepRelativeError() {
+        var recorder = new LatencyRecorder();
+        recorder.record(7);
+        recorder.record(Duration.ofMinutes(20).toNanos());
+
+        assertEquals(7, recorder.percentile(50));
+        assertEquals(Duration.ofMinutes(20).toNanos(), recorder.percentile(100));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "soak.duration", matches = ".+")
+    void soak(@TempDir Path directory) {
+        var results = new SoakHarness(SoakHarness.Config.fromSystemProperties()).run(directory);
+
+        System.out.print(SoakHarness.report(results));
+        assertFalse(results.isEmpty());
+    }
+
+    private static List<Long> failures(SimulatedStep step) {
+        var failures = new ArrayList<Long>();
+        for (long seed = 0; seed < 100; seed++) {
+            try {
+                step.run("load", seed);
+            } catch (IllegalStateException e) {
+                failures.add(seed);
+            }
+        }
+        return failures;
+    }
+
+    private static List<SyntheticInvoice.Kind> kinds(List<File> files) throws IOException {
+        var kinds = new ArrayList<SyntheticInvoice.Kind>();
+        for (var file : files) {
+            kinds.add(SyntheticInvoiceGenerator.readKind(Files.readAllBytes(file.toPath())));
+        }
+        return kinds;
+    }
+}
@@ -0,0 +1,26 @@
+package com.rucavi.invoice.processor.soak;
+
+import java.io.File;
+
+/**
+ * Parse result produced by the stand-in parser of the soak harness.
+ *
+ * @param file      The raw invoice file.
+ * @param kind      The outcome the invoice was generated for.
+ * @param startedAt The {@link System#nanoTime()} at which the invoice was retrieved.
+ */
+record SyntheticInvoice(File file, Kind kind, long startedAt) {
+    /**
+     * Outcome a synthetic invoice is generated for.
+     */
+    enum Kind {
+        /** Parsed, validated and loaded successfully. */
+        VALID,
+        /** Fails to parse. */
+        CORRUPT,
+        /** Parsed but fails validation. */
+        INVALID,
+        /** Parsed and validated but fails to load. */
+        UNLOADABLE
+    }
+}
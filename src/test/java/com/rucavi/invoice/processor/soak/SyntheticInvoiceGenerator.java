@@ -0,0 +1,108 @@
+package com.rucavi.invoice.processor.soak;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic invoice files of configurable sizes and failure mixes.
+ * <p>
+ * Each file starts with a header line naming its {@link SyntheticInvoice.Kind},
+ * followed by random filler up to a size drawn between the minimum and maximum.
+ */
+class SyntheticInvoiceGenerator {
+    private final Path directory;
+    private final int minSize;
+    private final int maxSize;
+    private final Map<SyntheticInvoice.Kind, Double> failureMix;
+    private final SplittableRandom random;
+    private long sequence;
+
+    /**
+     * Constructor for SyntheticInvoiceGenerator.
+     *
+     * @param directory  The directory the files are generated in.
+     * @param minSize    The minimum size of the files in bytes.
+     * @param maxSize    The maximum size of the files in bytes.
+     * @param failureMix The probability of every failing kind, the rest of the files are valid.
+     * @param seed       The seed of the random generator, so runs can be reproduced.
+     */
+    SyntheticInvoiceGenerator(Path directory, int minSize, int maxSize,
+                              Map<SyntheticInvoice.Kind, Double> failureMix, long seed) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Sizes must be positive and the maximum not below the minimum");
+        }
+        if (failureMix.values().stream().mapToDouble(Double::doubleValue).sum() > 1.0) {
+            throw new IllegalArgumentException("Failure mix probabilities cannot add up to more than 1");
+        }
+
+        this.directory = directory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.failureMix = failureMix.isEmpty() ? Map.of() : new EnumMap<>(failureMix);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Generates a batch of invoice files.
+     *
+     * @param count The number of files to be generated.
+     * @return The generated files.
+     */
+    synchronized List<File> generate(int count) {
+        List<File> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(write(nextKind(), minSize + random.nextInt(maxSize - minSize + 1)));
+        }
+        return files;
+    }
+
+    /**
+     * Reads the kind a file was generated for from its header line.
+     *
+     * @param content The content of the generated file.
+     * @return The kind of the file.
+     */
+    static SyntheticInvoice.Kind readKind(byte[] content) {
+        int end = 0;
+        while (end < content.length && content[end] != '\n') {
+            end++;
+        }
+        return SyntheticInvoice.Kind.valueOf(new String(content, 0, end, StandardCharsets.US_ASCII));
+    }
+
+    private SyntheticInvoice.Kind nextKind() {
+        double draw = random.nextDouble();
+        for (Map.Entry<SyntheticInvoice.Kind, Double> entry : failureMix.entrySet()) {
+            draw -= entry.getValue();
+            if (draw < 0) {
+                return entry.getKey();
+            }
+        }
+        return SyntheticInvoice.Kind.VALID;
+    }
+
+    private File write(SyntheticInvoice.Kind kind, int size) {
+        Path path = directory.resolve("invoice-" + sequence++ + ".pdf");
+        byte[] header = (kind.name() + "\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] filler = new byte[Math.max(0, size - header.length)];
+        random.nextBytes(filler);
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            out.write(header);
+            out.write(filler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate " + path, e);
+        }
+        return path.toFile();
+    }
+}
@@ -0,0 +1,219 @@
+package com.rucavi.invoice.processor.watch;
+
+import com.rucavi.invoice.processor.InvoiceProcessor;
+import com.rucavi.invoice.processor.handlers.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DirectoryWatchIngestorTests {
+    @Mock
+    private FileRetrievalStepHandler<String> retriever;
+
+    @Mock
+    private InvoiceParserStepHandler<String> parser;
+
+    @Mock
+    private ParseResultValidator<String> validator;
+
+    @Mock
+    private InvoiceLoadStepHandler<String> loader;
+
+    @Mock
+    private ParseRectificationStepHandler<String> rectifier;
+
+    @Mock
+    private ParseSaveStepHandler<String> saver;
+
+    @Mock
+    private DisposeStepHandler disposer;
+
+    @TempDir
+    private Path directory;
+
+    private InvoiceProcessor<String, String> processor;
+
+    private DirectoryWatchIngestor<String, String> ingestor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        processor = new InvoiceProcessor<String, String>(
+                null,
+                retriever,
+                parser,
+                new ParseResultValidator[]{validator},
+                loader,
+                rectifier,
+                saver,
+                disposer,
+                null);
+        ingestor = new DirectoryWatchIngestor<>(processor, "input", directory)
+                .withStabilityWindow(Duration.ofMillis(50))
+                .withRescanInterval(Duration.ofMillis(200));
+        lenient().when(parser.parseInvoice(any())).thenAnswer(inv -> inv.getArgument(0, File.class).getName());
+        lenient().when(validator.validate(any())).thenReturn(1.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        try {
+            ingestor.close();
+        } catch (IllegalStateException e) {
+            // Already asserted by the tests stopping the watcher on purpose
+        }
+        processor.close();
+    }
+
+    @Test
+    void whenStabilityWindowIsNegative_IllegalArgumentExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> ingestor.withStabilityWindow(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    void whenRescanIntervalIsZero_IllegalArgumentExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> ingestor.withRescanInterval(Duration.ZERO));
+    }
+
+    @Test
+    void whenStartedTwice_IllegalStateExceptionIsThrown() {
+        ingestor.start();
+
+        assertThrows(IllegalStateException.class, ingestor::start);
+    }
+
+    @Test
+    void whenFileExistsOnStart_ProcessIt() throws IOException {
+        var file = Files.writeString(directory.resolve("existing.pdf"), "invoice");
+
+        ingestor.start();
+
+        verify(loader, timeout(5000)).loadInvoice("existing.pdf");
+        verify(saver, timeout(5000)).saveAndNotifySuccess("existing.pdf");
+        verify(disposer, timeout(5000)).dispose(List.of(file.toFile()));
+        verifyNoInteractions(retriever);
+    }
+
+    @Test
+    void whenFileAppears_ProcessItOnlyOnce() throws Exception {
+        ingestor.start();
+
+        Files.writeString(directory.resolve("new.pdf"), "invoice");
+
+        verify(saver, timeout(5000)).saveAndNotifySuccess("new.pdf");
+        Thread.sleep(500);
+        verify(parser, times(1)).parseInvoice(directory.resolve("new.pdf").toFile());
+    }
+
+    @Test
+    void whenFileIsStillBeingWritten_WaitUntilItIsStable() throws Exception {
+        ingestor.withStabilityWindow(Duration.ofMillis(300)).start();
+        var file = directory.resolve("growing.pdf");
+
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file, "chunk" + i + System.lineSeparator(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Thread.sleep(100);
+        }
+        verifyNoInteractions(parser);
+
+        verify(saver, timeout(5000)).saveAndNotifySuccess("growing.pdf");
+        verify(parser, times(1)).parseInvoice(file.toFile());
+    }
+
+    @Test
+    void whenFileIsRenamedIntoPlace_IgnoreTemporaryName() throws Exception {
+        ingestor.withFileFilter(path -> !path.toString().endsWith(".part")).start();
+        var temporary = Files.writeString(directory.resolve("renamed.pdf.part"), "invoice");
+        Thread.sleep(200);
+        verifyNoInteractions(parser);
+
+        Files.move(temporary, directory.resolve("renamed.pdf"));
+
+        verify(saver, timeout(5000)).saveAndNotifySuccess("renamed.pdf");
+        verify(parser, never()).parseInvoice(temporary.toFile());
+    }
+
+    @Test
+    void whenClosedWhileProcessing_WaitForFilesToBeLoadedAndDisposed() throws Exception {
+        // Arrange
+        processor.withParallelism(2);
+        var parsing = new CountDownLatch(2);
+        var release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            parsing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return inv.getArgument(0, File.class).getName();
+        }).when(parser).parseInvoice(any());
+        var first = Files.writeString(directory.resolve("first.pdf"), "invoice").toFile();
+        var second = Files.writeString(directory.resolve("second.pdf"), "invoice").toFile();
+        ingestor.start();
+        assertTrue(parsing.await(5, TimeUnit.SECONDS));
+
+        // Act
+        var closing = CompletableFuture.runAsync(ingestor::close);
+        Thread.sleep(100);
+        assertFalse(closing.isDone());
+        release.countDown();
+        closing.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        verify(saver).saveAndNotifySuccess("first.pdf");
+        verify(saver).saveAndNotifySuccess("second.pdf");
+        verify(disposer).dispose(argThat(files -> files.size() == 2 && files.containsAll(List.of(first, second))));
+    }
+
+    @Test
+    void whenProcessingFails_RetryFilesOnNextRescan() throws IOException {
+        // Arrange
+        var file = Files.writeString(directory.resolve("retried.pdf"), "invoice").toFile();
+        doThrow(new RuntimeException("boom")).doNothing().when(disposer).dispose(List.of(file));
+
+        // Act
+        ingestor.start();
+
+        // Assert
+        verify(disposer, timeout(5000).times(2)).dispose(List.of(file));
+        verify(parser, times(2)).parseInvoice(file);
+    }
+
+    @Test
+    void whenWatcherFailsUnexpectedly_StopRunningAndRethrowOnClose() throws Exception {
+        // Arrange
+        ingestor.withFileFilter(path -> {
+            throw new IllegalArgumentException("boom");
+        });
+        Files.writeString(directory.resolve("any.pdf"), "invoice");
+
+        // Act
+        ingestor.start();
+
+        // Assert
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ingestor.isRunning()) {
+            assertTrue(System.nanoTime() - deadline < 0, "Watcher did not stop");
+            Thread.sleep(10);
+        }
+        var ex = assertThrows(IllegalStateException.class, ingestor::close);
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        verifyNoInteractions(parser);
+    }
+}